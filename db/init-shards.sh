@@ -37,8 +37,11 @@ EOSQL
     psql -v ON_ERROR_STOP=1 --username "$POSTGRES_USER" --dbname "shard_catalog" <<-EOSQL
         CREATE TABLE IF NOT EXISTS shard_mapping (
             shard_key VARCHAR(10) PRIMARY KEY,
-            jdbc_url VARCHAR(255) NOT NULL
+            jdbc_url VARCHAR(255) NOT NULL,
+            -- Репліки шарду для читань (JDBC URL через кому), NULL — лише primary
+            replica_urls TEXT
         );
+        ALTER TABLE shard_mapping ADD COLUMN IF NOT EXISTS replica_urls TEXT;
 
         -- Початкове наповнення (Вказуємо де спочатку лежать бази)
         INSERT INTO shard_mapping (shard_key, jdbc_url) VALUES
@@ -59,6 +62,50 @@ EOSQL
         ('e', 'jdbc:postgresql://postgres_03:5432/db_e'),
         ('f', 'jdbc:postgresql://postgres_03:5432/db_f')
         ON CONFLICT (shard_key) DO NOTHING;
+
+        -- Сповіщення застосунку (LISTEN shard_mapping_changed) про переміщення шарду
+        CREATE OR REPLACE FUNCTION notify_shard_mapping_changed() RETURNS trigger AS \$\$
+        BEGIN
+            PERFORM pg_notify('shard_mapping_changed', COALESCE(NEW.shard_key, OLD.shard_key));
+            RETURN NULL;
+        END;
+        \$\$ LANGUAGE plpgsql;
+
+        DROP TRIGGER IF EXISTS shard_mapping_changed ON shard_mapping;
+        CREATE TRIGGER shard_mapping_changed
+            AFTER INSERT OR UPDATE OR DELETE ON shard_mapping
+            FOR EACH ROW EXECUTE FUNCTION notify_shard_mapping_changed();
+
+        -- Віртуальні бакети (молодші 10 біт UUID) -> фізичний шард.
+        -- За замовчуванням бакет b лежить у шарді hex(b % 16), що збігається з "останнім hex-символом ID"
+        CREATE TABLE IF NOT EXISTS shard_buckets (
+            bucket INTEGER PRIMARY KEY CHECK (bucket >= 0 AND bucket < 1024),
+            shard_key VARCHAR(10) NOT NULL REFERENCES shard_mapping (shard_key)
+        );
+
+        -- legacy_rows: у бакеті можуть бути локації, створені до бакетів (їхній бакет не збігається
+        -- з бакетом плану). Такий бакет не можна переносити, доки прапорець не знято вручну
+        -- після перевірки, що розбіжних пар план/локація в ньому немає.
+        ALTER TABLE shard_buckets ADD COLUMN IF NOT EXISTS legacy_rows BOOLEAN NOT NULL DEFAULT TRUE;
+        ALTER TABLE shard_buckets DROP CONSTRAINT IF EXISTS shard_buckets_legacy_rows_stay;
+        ALTER TABLE shard_buckets ADD CONSTRAINT shard_buckets_legacy_rows_stay
+            CHECK (NOT legacy_rows OR shard_key = to_hex(bucket % 16));
+
+        INSERT INTO shard_buckets (bucket, shard_key)
+        SELECT b, to_hex(b % 16) FROM generate_series(0, 1023) AS b
+        ON CONFLICT (bucket) DO NOTHING;
+
+        CREATE OR REPLACE FUNCTION notify_shard_buckets_changed() RETURNS trigger AS \$\$
+        BEGIN
+            PERFORM pg_notify('shard_buckets_changed', '');
+            RETURN NULL;
+        END;
+        \$\$ LANGUAGE plpgsql;
+
+        DROP TRIGGER IF EXISTS shard_buckets_changed ON shard_buckets;
+        CREATE TRIGGER shard_buckets_changed
+            AFTER INSERT OR UPDATE OR DELETE ON shard_buckets
+            FOR EACH STATEMENT EXECUTE FUNCTION notify_shard_buckets_changed();
 EOSQL
 fi
 
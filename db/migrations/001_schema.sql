@@ -10,6 +10,7 @@ CREATE TABLE travel_plans (
     currency VARCHAR(3) DEFAULT 'USD',
     is_public BOOLEAN DEFAULT FALSE,
     version INTEGER,
+    last_visit_order INTEGER,
     created_at TIMESTAMPTZ DEFAULT NOW(),
     updated_at TIMESTAMPTZ DEFAULT NOW()
     );
@@ -29,4 +30,12 @@ CREATE TABLE locations (
     version INTEGER,
     created_at TIMESTAMPTZ DEFAULT NOW(),
     CONSTRAINT fk_travel_plan FOREIGN KEY(travel_plan_id) REFERENCES travel_plans(id) ON DELETE CASCADE
-    );
\ No newline at end of file
+    );
+
+-- Ключі сортування списку планів (id — останній ключ, як у keyset-запитах шарду)
+CREATE INDEX idx_travel_plans_start_date_id ON travel_plans (start_date, id);
+CREATE INDEX idx_travel_plans_end_date_id ON travel_plans (end_date, id);
+CREATE INDEX idx_travel_plans_budget_id ON travel_plans (budget, id);
+CREATE INDEX idx_travel_plans_created_at_id ON travel_plans (created_at, id);
+CREATE INDEX idx_travel_plans_title_id ON travel_plans ((lower(title) COLLATE "C"), id);
+CREATE INDEX idx_travel_plans_currency_id ON travel_plans ((lower(currency) COLLATE "C"), id);
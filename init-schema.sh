@@ -14,7 +14,8 @@ CREATE TABLE IF NOT EXISTS travel_plans (
     start_date TIMESTAMP(6) WITH TIME ZONE,
     title VARCHAR(255),
     updated_at TIMESTAMP(6) WITH TIME ZONE,
-    version INTEGER
+    version INTEGER,
+    last_visit_order INTEGER
 );
 
 CREATE TABLE IF NOT EXISTS locations (
@@ -32,6 +33,18 @@ CREATE TABLE IF NOT EXISTS locations (
     visit_order INTEGER,
     travel_plan_id UUID REFERENCES travel_plans(id) ON DELETE CASCADE
 );
+
+-- Лічильник visit_order для додавання локацій без блокування плану на всю транзакцію
+ALTER TABLE travel_plans ADD COLUMN IF NOT EXISTS last_visit_order INTEGER;
+CREATE UNIQUE INDEX IF NOT EXISTS uk_locations_plan_visit_order ON locations (travel_plan_id, visit_order);
+
+-- Ключі сортування списку планів (id — останній ключ, як у keyset-запитах шарду)
+CREATE INDEX IF NOT EXISTS idx_travel_plans_start_date_id ON travel_plans (start_date, id);
+CREATE INDEX IF NOT EXISTS idx_travel_plans_end_date_id ON travel_plans (end_date, id);
+CREATE INDEX IF NOT EXISTS idx_travel_plans_budget_id ON travel_plans (budget, id);
+CREATE INDEX IF NOT EXISTS idx_travel_plans_created_at_id ON travel_plans (created_at, id);
+CREATE INDEX IF NOT EXISTS idx_travel_plans_title_id ON travel_plans ((lower(title) COLLATE "C"), id);
+CREATE INDEX IF NOT EXISTS idx_travel_plans_currency_id ON travel_plans ((lower(currency) COLLATE "C"), id);
 EOF
 )
 
@@ -0,0 +1,73 @@
+package com.example.traveler;
+
+import com.example.traveler.dto.LocationDTO;
+import com.example.traveler.dto.PlanResponse;
+import com.example.traveler.service.ShardIdGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Серіалізація PlanResponse так, як її робить застосунок: Jackson2ObjectMapperBuilder
+ * (модулі java.time тощо) + SNAKE_CASE зі spring.jackson.property-naming-strategy.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlanJsonBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int locations;
+
+    private ObjectWriter writer;
+    private PlanResponse plan;
+
+    @Setup
+    public void setUp() {
+        writer = Jackson2ObjectMapperBuilder.json()
+                .propertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE)
+                .build()
+                .writerFor(PlanResponse.class);
+
+        UUID planId = ShardIdGenerator.timeOrderedId();
+        List<LocationDTO> locationDtos = new ArrayList<>(locations);
+        for (int i = 1; i <= locations; i++) {
+            locationDtos.add(new LocationDTO(ShardIdGenerator.timeOrderedId(), planId, "Stop " + i, "Via Roma " + i,
+                    new BigDecimal("43.771389"), new BigDecimal("11.254167"), i, "Museum, lunch, walk",
+                    OffsetDateTime.parse("2025-07-01T10:00:00Z").plusDays(i % 14),
+                    OffsetDateTime.parse("2025-07-01T18:00:00Z").plusDays(i % 14),
+                    new BigDecimal("120.50"), 0));
+        }
+        plan = new PlanResponse(planId, "Summer in Italy", "Two weeks across Tuscany and Rome",
+                LocalDate.of(2025, 7, 1), LocalDate.of(2025, 7, 14), new BigDecimal("4200.00"), "EUR",
+                3, true, locationDtos);
+    }
+
+    @Benchmark
+    public byte[] serializePlan() throws JsonProcessingException {
+        return writer.writeValueAsBytes(plan);
+    }
+}
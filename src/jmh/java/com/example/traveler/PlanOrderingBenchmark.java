@@ -0,0 +1,129 @@
+package com.example.traveler;
+
+import com.example.traveler.config.ShardTaskExecutor;
+import com.example.traveler.repository.PlanSummaryRow;
+import com.example.traveler.service.PlanOrdering;
+import com.example.traveler.service.ShardIdGenerator;
+import com.example.traveler.service.ShardMergeEngine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ланцюжки компараторів PlanOrdering і k-way злиття сторінки списку з 16 шардів у пам'яті
+ * (колишній sortInMemory тепер замінений злиттям ShardMergeEngine).
+ * sort — як у ?sort=: властивості через ";", напрям через ":".
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlanOrderingBenchmark {
+
+    private static final int SHARDS = 16;
+    private static final int ROWS_PER_SHARD = 2_000;
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"id", "title", "startDate:desc;budget"})
+    public String sort;
+
+    @Param({"0", "1000"})
+    public long offset;
+
+    private Comparator<PlanSummaryRow> comparator;
+    private List<PlanSummaryRow> rows;
+    private Map<String, List<PlanSummaryRow>> sortedShards;
+    private ShardTaskExecutor executor;
+    private ShardMergeEngine engine;
+
+    @Setup
+    public void setUp() {
+        comparator = PlanOrdering.of(parseSort(sort)).comparator();
+        rows = new ArrayList<>(SHARDS * ROWS_PER_SHARD);
+        sortedShards = new TreeMap<>();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int shard = 0; shard < SHARDS; shard++) {
+            List<PlanSummaryRow> shardRows = new ArrayList<>(ROWS_PER_SHARD);
+            for (int i = 0; i < ROWS_PER_SHARD; i++) {
+                LocalDate start = LocalDate.of(2025, 1, 1).plusDays(random.nextInt(365));
+                // Частина полів порожня, щоб компаратори проходили і гілку nullsLast
+                shardRows.add(new PlanSummaryRow(ShardIdGenerator.randomId(shard), "Trip " + random.nextInt(10_000),
+                        start, start.plusDays(7), i % 10 == 0 ? null : BigDecimal.valueOf(random.nextInt(100_000), 2),
+                        "USD", false, 0, OffsetDateTime.now()));
+            }
+            rows.addAll(shardRows);
+            shardRows.sort(comparator);
+            sortedShards.put(Integer.toHexString(shard), shardRows);
+        }
+        executor = new ShardTaskExecutor(SHARDS, 2, 256, Duration.ofSeconds(1), Duration.ofSeconds(5),
+                TransactionOperations.withoutTransaction());
+        engine = new ShardMergeEngine(executor, new SimpleMeterRegistry());
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    /** Повне сортування всіх рядків у пам'яті — нижня межа для порівняння зі злиттям. */
+    @Benchmark
+    public List<PlanSummaryRow> sortAll() {
+        List<PlanSummaryRow> copy = new ArrayList<>(rows);
+        copy.sort(comparator);
+        return copy;
+    }
+
+    @Benchmark
+    public List<PlanSummaryRow> mergePage() {
+        return engine.merge(sortedShards.keySet(), comparator, this::fetch, offset, PAGE_SIZE);
+    }
+
+    // Імітація fetchSortedFromShard: наступні limit рядків після after
+    private List<PlanSummaryRow> fetch(String shardKey, PlanSummaryRow after, int limit) {
+        List<PlanSummaryRow> shardRows = sortedShards.get(shardKey);
+        int from = 0;
+        if (after != null) {
+            int index = Collections.binarySearch(shardRows, after, comparator);
+            from = index >= 0 ? index + 1 : -index - 1;
+        }
+        return shardRows.subList(Math.min(from, shardRows.size()), Math.min(from + limit, shardRows.size()));
+    }
+
+    private static Sort parseSort(String spec) {
+        List<Sort.Order> orders = new ArrayList<>();
+        for (String part : spec.split(";")) {
+            String[] propertyAndDirection = part.split(":");
+            orders.add(propertyAndDirection.length > 1 && propertyAndDirection[1].equals("desc")
+                    ? Sort.Order.desc(propertyAndDirection[0])
+                    : Sort.Order.asc(propertyAndDirection[0]));
+        }
+        return Sort.by(orders);
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.traveler;
+
+import com.example.traveler.service.ShardIdGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Швидкість вставки в Postgres з випадковими (v4) і впорядкованими за часом (v7) первинними ключами.
+ * Потрібна запущена база, напр. шард з docker-compose:
+ * -Djmh.args="PrimaryKeyInsert -jvmArgs -Dbench.jdbc.url=jdbc:postgresql://localhost:5432/db_0"
+ * Різниця зростає, коли індекс первинного ключа перестає вміщатися в shared_buffers,
+ * тож для реалістичної картини варто збільшити кількість ітерацій вимірювання.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class PrimaryKeyInsertBenchmark {
+
+    private static final int BATCH_SIZE = 100;
+
+    @Param({"random", "timeOrdered"})
+    public String idStyle;
+
+    private Connection connection;
+    private PreparedStatement insert;
+    private String table;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection(
+                System.getProperty("bench.jdbc.url", "jdbc:postgresql://localhost:5432/db_0"),
+                System.getProperty("bench.jdbc.user", "postgres"),
+                System.getProperty("bench.jdbc.password", "09125689"));
+        table = "bench_pk_" + idStyle.toLowerCase();
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS " + table);
+            stmt.execute("CREATE TABLE " + table + " (id uuid PRIMARY KEY, payload VARCHAR(200), created_at TIMESTAMPTZ DEFAULT NOW())");
+        }
+        connection.setAutoCommit(false);
+        insert = connection.prepareStatement("INSERT INTO " + table + " (id, payload) VALUES (?, ?)");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        insert.close();
+        connection.setAutoCommit(true);
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS " + table);
+        }
+        connection.close();
+    }
+
+    /** Одна транзакція з BATCH_SIZE вставок; результат — рядків за секунду. */
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void insertBatch() throws SQLException {
+        boolean timeOrdered = idStyle.equals("timeOrdered");
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            UUID id = timeOrdered ? ShardIdGenerator.timeOrderedId(0) : ShardIdGenerator.randomId(0);
+            insert.setObject(1, id);
+            insert.setString(2, "Location " + i);
+            insert.addBatch();
+        }
+        insert.executeBatch();
+        connection.commit();
+    }
+}
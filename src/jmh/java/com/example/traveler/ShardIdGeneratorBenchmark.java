@@ -0,0 +1,57 @@
+package com.example.traveler;
+
+import com.example.traveler.service.ShardIdGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Генерація ID локації в заданому шарді: старий перебір UUID.randomUUID() проти ShardIdGenerator.
+ * Конкуренцію за SecureRandom видно при запуску з кількома потоками (-t 8).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShardIdGeneratorBenchmark {
+
+    @Param({"0", "f"})
+    public String shardKey;
+
+    @Benchmark
+    public UUID randomUuidLoop() {
+        UUID uuid;
+        do {
+            uuid = UUID.randomUUID();
+        } while (!getShardKey(uuid).equals(shardKey));
+        return uuid;
+    }
+
+    @Benchmark
+    public UUID shardIdGenerator() {
+        return ShardIdGenerator.randomId(Character.digit(shardKey.charAt(0), 16));
+    }
+
+    @Benchmark
+    public UUID timeOrderedId() {
+        return ShardIdGenerator.timeOrderedId(Character.digit(shardKey.charAt(0), 16));
+    }
+
+    // Колишній LocationService.getShardKey
+    private static String getShardKey(UUID id) {
+        String uuidStr = id.toString();
+        return String.valueOf(uuidStr.charAt(uuidStr.length() - 1));
+    }
+}
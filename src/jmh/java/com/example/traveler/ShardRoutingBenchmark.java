@@ -0,0 +1,65 @@
+package com.example.traveler;
+
+import com.example.traveler.config.BucketShardRouter;
+import com.example.traveler.service.ShardIdGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Визначення шарду за id: колишній getShardKey (UUID.toString().charAt) проти BucketShardRouter.
+ * id перебираються по колу з масиву, щоб JIT не згорнув обчислення для однієї константи.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShardRoutingBenchmark {
+
+    private static final int IDS = 1024;
+
+    private final UUID[] ids = new UUID[IDS];
+    private BucketShardRouter router;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        for (int i = 0; i < IDS; i++) {
+            ids[i] = ShardIdGenerator.timeOrderedId();
+        }
+        router = new BucketShardRouter(null);
+    }
+
+    private UUID nextId() {
+        next = (next + 1) & (IDS - 1);
+        return ids[next];
+    }
+
+    @Benchmark
+    public String legacyToStringCharAt() {
+        String uuidStr = nextId().toString();
+        return String.valueOf(uuidStr.charAt(uuidStr.length() - 1));
+    }
+
+    @Benchmark
+    public String bucketRouter() {
+        return router.shardFor(nextId());
+    }
+
+    @Benchmark
+    public int bucketOf() {
+        return router.bucketOf(nextId());
+    }
+}
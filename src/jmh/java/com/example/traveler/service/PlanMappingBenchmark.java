@@ -0,0 +1,83 @@
+package com.example.traveler.service;
+
+import com.example.traveler.dto.PlanResponse;
+import com.example.traveler.dto.PlanSummaryResponse;
+import com.example.traveler.model.Location;
+import com.example.traveler.model.TravelPlan;
+import com.example.traveler.repository.PlanSummaryRow;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Мапінг сутності плану в PlanResponse (деталі) і рядка списку в PlanSummaryResponse.
+ * У пакеті service, бо методи мапінгу пакетні. Алокації — з -prof gc (увімкнено за замовчуванням у профілі jmh).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlanMappingBenchmark {
+
+    @Param({"0", "20", "500"})
+    public int locations;
+
+    private TravelPlan plan;
+    private PlanSummaryRow summaryRow;
+
+    @Setup
+    public void setUp() {
+        plan = new TravelPlan();
+        plan.setId(ShardIdGenerator.timeOrderedId());
+        plan.setTitle("Summer in Italy");
+        plan.setDescription("Two weeks across Tuscany and Rome");
+        plan.setStartDate(LocalDate.of(2025, 7, 1));
+        plan.setEndDate(LocalDate.of(2025, 7, 14));
+        plan.setBudget(new BigDecimal("4200.00"));
+        plan.setCurrency("EUR");
+        plan.setVersion(3);
+        for (int i = 1; i <= locations; i++) {
+            Location location = new Location();
+            location.setId(ShardIdGenerator.timeOrderedId());
+            location.setTravelPlan(plan);
+            location.setName("Stop " + i);
+            location.setAddress("Via Roma " + i);
+            location.setLatitude(new BigDecimal("43.771389"));
+            location.setLongitude(new BigDecimal("11.254167"));
+            location.setVisitOrder(i);
+            location.setNotes("Museum, lunch, walk");
+            location.setArrivalDate(OffsetDateTime.parse("2025-07-01T10:00:00Z").plusDays(i % 14));
+            location.setDepartureDate(OffsetDateTime.parse("2025-07-01T18:00:00Z").plusDays(i % 14));
+            location.setBudget(new BigDecimal("120.50"));
+            location.setVersion(0);
+            plan.getLocations().add(location);
+        }
+        summaryRow = new PlanSummaryRow(plan.getId(), plan.getTitle(), plan.getStartDate(), plan.getEndDate(),
+                plan.getBudget(), plan.getCurrency(), false, plan.getVersion(), OffsetDateTime.now());
+    }
+
+    @Benchmark
+    public PlanResponse toPlanResponse() {
+        return TravelPlanService.toPlanResponse(plan);
+    }
+
+    @Benchmark
+    public PlanSummaryResponse toPlanSummaryResponse() {
+        return TravelPlanService.toPlanSummaryResponse(summaryRow);
+    }
+}
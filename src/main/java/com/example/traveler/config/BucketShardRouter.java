@@ -0,0 +1,153 @@
+package com.example.traveler.config;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+
+/**
+ * 1024 віртуальні бакети: бакет — молодші 10 біт UUID, розподіл бакетів по шардах — таблиця
+ * shard_buckets у каталозі. Молодші 4 біти бакета — це останній hex-символ ID, тож за
+ * замовчуванням бакет b лежить у шарді hex(b % 16), і старі ID маршрутизуються як раніше.
+ * Щоб розвантажити шард, частину його бакетів переносять на новий шард — без зміни ID.
+ * <p>
+ * Локації, створені до бакетів, збігаються з планом лише молодшим hex-символом, а не бакетом,
+ * тож перенесення їхнього бакета (або бакета плану) розірвало б план і локацію. Такі бакети
+ * позначені shard_buckets.legacy_rows і не можуть покинути шард за замовчуванням: каталог
+ * відхиляє таку зміну CHECK-обмеженням, а роутер ігнорує її, якщо каталог старий.
+ */
+@Slf4j
+public class BucketShardRouter implements ShardRouter {
+
+    private static final long BUCKET_MASK = BUCKETS - 1;
+
+    // Незмінний знімок: заміна посилання атомарно перемикає маршрутизацію
+    private record Snapshot(String[] shardByBucket, List<String> shards) {}
+
+    private final ShardingRoutingDataSource shardingDataSource;
+    private volatile Snapshot snapshot;
+
+    public BucketShardRouter(ShardingRoutingDataSource shardingDataSource) {
+        this.shardingDataSource = shardingDataSource;
+        apply(Map.of());
+    }
+
+    @Override
+    public int bucketCount() {
+        return BUCKETS;
+    }
+
+    @Override
+    public int bucketOf(UUID id) {
+        return (int) (id.getLeastSignificantBits() & BUCKET_MASK);
+    }
+
+    @Override
+    public String shardForBucket(int bucket) {
+        return snapshot.shardByBucket()[bucket];
+    }
+
+    @Override
+    public List<String> shards() {
+        return snapshot.shards();
+    }
+
+    /** Перше завантаження на старті: з'єднання з каталогом з повторами. */
+    public synchronized void initialize() {
+        loadAssignments(true);
+    }
+
+    /** Перечитує shard_buckets з каталогу (одна спроба з'єднання). */
+    public synchronized void reload() {
+        loadAssignments(false);
+    }
+
+    /** Застосовує розподіл бакетів, у яких немає рядків, створених до бакетів. */
+    public synchronized void apply(Map<Integer, String> assignments) {
+        apply(assignments, Set.of());
+    }
+
+    /**
+     * Застосовує розподіл бакетів; бакети, відсутні в assignments, лишаються в шарді за замовчуванням.
+     * Бакети з legacyBuckets завжди лишаються в шарді за замовчуванням — їхнє перенесення відхиляється.
+     */
+    public synchronized void apply(Map<Integer, String> assignments, Set<Integer> legacyBuckets) {
+        String[] shardByBucket = new String[BUCKETS];
+        int defaulted = 0;
+        int rejected = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            String shard = assignments.get(bucket);
+            if (shard == null) {
+                shard = defaultShard(bucket);
+                defaulted++;
+            } else if (legacyBuckets.contains(bucket) && !shard.equals(defaultShard(bucket))) {
+                shard = defaultShard(bucket);
+                rejected++;
+            }
+            shardByBucket[bucket] = shard;
+        }
+        List<String> shards = List.copyOf(new TreeSet<>(List.of(shardByBucket)));
+        snapshot = new Snapshot(shardByBucket, shards);
+
+        if (rejected > 0) {
+            log.error("{} buckets with pre-bucket rows (shard_buckets.legacy_rows) are assigned away from their "
+                    + "default shard; the move is rejected and they stay in place", rejected);
+        }
+        if (!assignments.isEmpty() && defaulted > 0) {
+            log.warn("{} buckets are missing in shard_buckets, using default shards for them", defaulted);
+        }
+        log.info("Bucket routing loaded: {} buckets over {} shards", BUCKETS, shards.size());
+    }
+
+    private void loadAssignments(boolean retry) {
+        Map<Integer, String> assignments = new HashMap<>();
+        Set<Integer> legacyBuckets = new HashSet<>();
+        try (Connection conn = retry ? shardingDataSource.openCatalogConnectionWithRetry() : shardingDataSource.openCatalogConnection()) {
+            try {
+                queryAssignments(conn, true, assignments, legacyBuckets);
+            } catch (SQLException e) {
+                // Каталог без колонки legacy_rows (до міграції) — вважаємо, що старі рядки є в усіх бакетах
+                if (!"42703".equals(e.getSQLState())) throw e;
+                queryAssignments(conn, false, assignments, legacyBuckets);
+            }
+        } catch (SQLException e) {
+            // Каталог без shard_buckets (до міграції) — працюємо за схемою "останній hex-символ"
+            if ("42P01".equals(e.getSQLState())) {
+                log.warn("shard_buckets table not found, using default bucket routing");
+                apply(Map.of());
+                return;
+            }
+            throw new RuntimeException("Failed to load bucket mapping from DB", e);
+        }
+        apply(assignments, legacyBuckets);
+    }
+
+    private static void queryAssignments(Connection conn, boolean withLegacyFlag,
+                                         Map<Integer, String> assignments, Set<Integer> legacyBuckets) throws SQLException {
+        assignments.clear();
+        legacyBuckets.clear();
+        String sql = "SELECT bucket, shard_key" + (withLegacyFlag ? ", legacy_rows" : "") + " FROM shard_buckets";
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                int bucket = rs.getInt("bucket");
+                if (bucket < 0 || bucket >= BUCKETS) continue;
+                assignments.put(bucket, rs.getString("shard_key"));
+                if (!withLegacyFlag || rs.getBoolean("legacy_rows")) legacyBuckets.add(bucket);
+            }
+        }
+    }
+
+    private static String defaultShard(int bucket) {
+        return Character.toString(Character.forDigit(bucket & 0xF, 16));
+    }
+}
@@ -1,21 +1,68 @@
 package com.example.traveler.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 
 import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
+@Slf4j
 @Configuration
 public class DataSourceConfig {
 
     @Bean
-    public ShardingRoutingDataSource shardingDataSource() {
-        ShardingRoutingDataSource routingDataSource = new ShardingRoutingDataSource();
-        routingDataSource.refreshDataSources();
+    public ShardingRoutingDataSource shardingDataSource(@Value("${traveler.shards.max-pool-size:5}") int maxPoolSize,
+                                                        @Value("${traveler.shards.catalog.url}") String catalogUrl,
+                                                        @Value("${traveler.shards.catalog.username}") String username,
+                                                        @Value("${traveler.shards.catalog.password}") String password,
+                                                        @Value("${traveler.shards.catalog.connect-attempts:10}") int connectAttempts,
+                                                        @Value("${traveler.shards.catalog.retry-backoff-ms:500}") long retryBackoffMs,
+                                                        @Value("${traveler.shards.catalog.retry-timeout-ms:30000}") long retryTimeoutMs,
+                                                        @Value("${traveler.shards.warm-up.mode:eager}") String warmUpMode,
+                                                        @Value("${traveler.shards.warm-up.timeout-ms:10000}") long warmUpTimeoutMs,
+                                                        MeterRegistry meterRegistry) {
+        ShardingRoutingDataSource.CatalogSettings catalog = new ShardingRoutingDataSource.CatalogSettings(
+                catalogUrl, username, password, connectAttempts, Duration.ofMillis(retryBackoffMs),
+                Duration.ofMillis(retryTimeoutMs));
+        ShardingRoutingDataSource routingDataSource = new ShardingRoutingDataSource(maxPoolSize, catalog, meterRegistry);
+        // Пули прогріваються паралельно у фоні; eager — старт чекає на прогрів (не довше за таймаут),
+        // lazy — не чекає. Готовність до трафіку в обох режимах показує readiness-проба
+        routingDataSource.initialize();
+        if ("eager".equalsIgnoreCase(warmUpMode)) {
+            awaitWarmUp(routingDataSource, Duration.ofMillis(warmUpTimeoutMs));
+        }
         return routingDataSource;
     }
 
+    private static void awaitWarmUp(ShardingRoutingDataSource routingDataSource, Duration timeout) {
+        long start = System.nanoTime();
+        try {
+            routingDataSource.warmUp().get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            log.info("Shard pools warmed up in {} ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (TimeoutException e) {
+            log.warn("Shard pools not warmed up within {} ms, continuing; readiness stays down until they are", timeout.toMillis());
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Shard pool warm-up failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while warming up shard pools", e);
+        }
+    }
+
+    @Bean
+    public BucketShardRouter shardRouter(ShardingRoutingDataSource shardingDataSource) {
+        BucketShardRouter router = new BucketShardRouter(shardingDataSource);
+        router.initialize();
+        return router;
+    }
+
     @Bean
     @Primary
     public DataSource dataSource(ShardingRoutingDataSource shardingDataSource) {
@@ -0,0 +1,80 @@
+package com.example.traveler.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Read-your-writes для читань з реплік: запит, що змінює дані, ставить клієнту cookie з часом запису,
+ * і наступні читання цього клієнта протягом вікна йдуть на primary, а не на репліку, що може відставати.
+ * Вікно 0 вимикає механізм.
+ */
+@Component
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    static final String COOKIE = "traveler_last_write";
+
+    private final long windowMs;
+
+    public ReadYourWritesFilter(@Value("${traveler.shards.replicas.read-your-writes-ms:0}") long windowMs) {
+        this.windowMs = windowMs;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (windowMs <= 0) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        if (isWrite(request)) {
+            Cookie cookie = new Cookie(COOKIE, Long.toString(now));
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            cookie.setMaxAge((int) Math.max(1, (windowMs + 999) / 1000));
+            response.addCookie(cookie);
+            chain.doFilter(request, response);
+            return;
+        }
+
+        Long lastWrite = lastWrite(request);
+        if (lastWrite == null || now - lastWrite >= windowMs) {
+            chain.doFilter(request, response);
+            return;
+        }
+        ShardContext.pinToPrimary();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ShardContext.unpin();
+        }
+    }
+
+    private static boolean isWrite(HttpServletRequest request) {
+        String method = request.getMethod();
+        return !("GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method));
+    }
+
+    private static Long lastWrite(HttpServletRequest request) {
+        if (request.getCookies() == null) return null;
+        for (Cookie cookie : request.getCookies()) {
+            if (COOKIE.equals(cookie.getName())) {
+                try {
+                    return Long.parseLong(cookie.getValue());
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+}
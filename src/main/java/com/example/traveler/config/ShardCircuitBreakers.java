@@ -0,0 +1,83 @@
+package com.example.traveler.config;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Circuit breaker на кожен шард. Після failureThreshold послідовних збоїв (таймаут або
+ * недоступність вузла) шард "відкривається": запити до нього одразу відхиляються протягом
+ * openDuration, після чого пропускається один пробний запит (HALF_OPEN).
+ * Помилки застосунку (обмеження, блокування) на стан не впливають.
+ */
+public class ShardCircuitBreakers {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private static final class Breaker {
+        private State state = State.CLOSED;
+        private int failures;
+        private long changedAt;
+    }
+
+    private final int failureThreshold;
+    private final long openNanos;
+    private final Map<String, Breaker> breakers = new ConcurrentHashMap<>();
+
+    public ShardCircuitBreakers(int failureThreshold, Duration openDuration) {
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openDuration.toNanos();
+    }
+
+    /** Чи можна зараз звертатися до шарду. */
+    public boolean tryAcquire(String shardKey) {
+        Breaker breaker = breaker(shardKey);
+        synchronized (breaker) {
+            long now = System.nanoTime();
+            switch (breaker.state) {
+                case CLOSED:
+                    return true;
+                case OPEN:
+                case HALF_OPEN:
+                    // Пробний запит після паузи; якщо попередній пробний так і не завершився — ще один
+                    if (now - breaker.changedAt < openNanos) return false;
+                    breaker.state = State.HALF_OPEN;
+                    breaker.changedAt = now;
+                    return true;
+                default:
+                    return false;
+            }
+        }
+    }
+
+    public void onSuccess(String shardKey) {
+        Breaker breaker = breaker(shardKey);
+        synchronized (breaker) {
+            breaker.state = State.CLOSED;
+            breaker.failures = 0;
+        }
+    }
+
+    public void onFailure(String shardKey) {
+        Breaker breaker = breaker(shardKey);
+        synchronized (breaker) {
+            breaker.failures++;
+            if (breaker.state == State.HALF_OPEN || breaker.failures >= failureThreshold) {
+                breaker.state = State.OPEN;
+                breaker.changedAt = System.nanoTime();
+            }
+        }
+    }
+
+    public State getState(String shardKey) {
+        Breaker breaker = breakers.get(shardKey);
+        if (breaker == null) return State.CLOSED;
+        synchronized (breaker) {
+            return breaker.state;
+        }
+    }
+
+    private Breaker breaker(String shardKey) {
+        return breakers.computeIfAbsent(shardKey, k -> new Breaker());
+    }
+}
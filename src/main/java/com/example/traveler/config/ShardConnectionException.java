@@ -0,0 +1,21 @@
+package com.example.traveler.config;
+
+import java.sql.SQLException;
+
+/**
+ * Помилка отримання з'єднання до конкретного шарду. Зберігає SQLState оригінальної помилки
+ * і ключ шарду, щоб обробник помилок міг оновити маршрут лише для цього шарду.
+ */
+public class ShardConnectionException extends SQLException {
+
+    private final String shardKey;
+
+    public ShardConnectionException(String shardKey, SQLException cause) {
+        super("Cannot connect to shard " + shardKey + ": " + cause.getMessage(), cause.getSQLState(), cause.getErrorCode(), cause);
+        this.shardKey = shardKey;
+    }
+
+    public String getShardKey() {
+        return shardKey;
+    }
+}
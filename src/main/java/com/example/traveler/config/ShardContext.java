@@ -1,7 +1,13 @@
 package com.example.traveler.config;
 
+import java.util.function.Supplier;
+
 public class ShardContext {
     private static final ThreadLocal<String> currentShard = new ThreadLocal<>();
+    // Поточна дія лише читає і може йти на репліку шарду
+    private static final ThreadLocal<Boolean> replicaRead = new ThreadLocal<>();
+    // Запит клієнта, який щойно писав: усі читання — з primary (read-your-writes)
+    private static final ThreadLocal<Boolean> pinnedToPrimary = new ThreadLocal<>();
 
     public static void setShard(String shardKey) {
         currentShard.set(shardKey);
@@ -13,5 +19,49 @@ public class ShardContext {
 
     public static void clear() {
         currentShard.remove();
+        replicaRead.remove();
+    }
+
+    /** Чи можна взяти з'єднання до репліки для поточної дії. */
+    public static boolean isReplicaRead() {
+        return Boolean.TRUE.equals(replicaRead.get()) && !isPinnedToPrimary();
+    }
+
+    public static boolean isPinnedToPrimary() {
+        return Boolean.TRUE.equals(pinnedToPrimary.get());
+    }
+
+    public static void pinToPrimary() {
+        pinnedToPrimary.set(true);
+    }
+
+    public static void unpin() {
+        pinnedToPrimary.remove();
+    }
+
+    /**
+     * Виконує дію з заданим шардом і відновлює попередній після неї (за зразком ScopedValue.where().call()).
+     * Шард прив'язаний лише до потоку, що виконує дію, тож це коректно і для віртуальних потоків.
+     * replica == true — дія лише читає і може йти на репліку.
+     */
+    public static <T> T callInShard(String shardKey, boolean replica, Supplier<T> action) {
+        String previous = currentShard.get();
+        Boolean previousReplica = replicaRead.get();
+        currentShard.set(shardKey);
+        replicaRead.set(replica);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                currentShard.remove();
+            } else {
+                currentShard.set(previous);
+            }
+            if (previousReplica == null) {
+                replicaRead.remove();
+            } else {
+                replicaRead.set(previousReplica);
+            }
+        }
     }
-}
\ No newline at end of file
+}
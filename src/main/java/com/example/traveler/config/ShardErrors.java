@@ -0,0 +1,36 @@
+package com.example.traveler.config;
+
+import java.net.ConnectException;
+import java.net.UnknownHostException;
+import java.sql.SQLException;
+import java.util.Set;
+
+/** Класифікація помилок доступу до шардів: недоступність вузла проти помилок застосунку. */
+public final class ShardErrors {
+
+    // 3D000 — бази не існує (шард переїхав), 57P01..57P03 — сервер зупиняється/ще не готовий
+    private static final Set<String> TOPOLOGY_SQL_STATES = Set.of("3D000", "57P01", "57P02", "57P03");
+
+    private ShardErrors() {
+    }
+
+    /** Чи вказує помилка на недоступність/переміщення шарду (а не на помилку застосунку). */
+    public static boolean isConnectionFailure(Throwable ex) {
+        for (Throwable t = ex; t != null; t = t.getCause() == t ? null : t.getCause()) {
+            if (t instanceof ConnectException || t instanceof UnknownHostException) return true;
+            if (t instanceof SQLException sql && sql.getSQLState() != null) {
+                String state = sql.getSQLState();
+                if (state.startsWith("08") || TOPOLOGY_SQL_STATES.contains(state)) return true;
+            }
+        }
+        return false;
+    }
+
+    /** Ключ шарду, на якому не вдалося отримати з'єднання, або null. */
+    public static String affectedShard(Throwable ex) {
+        for (Throwable t = ex; t != null; t = t.getCause() == t ? null : t.getCause()) {
+            if (t instanceof ShardConnectionException shardEx) return shardEx.getShardKey();
+        }
+        return null;
+    }
+}
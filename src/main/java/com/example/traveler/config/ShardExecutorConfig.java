@@ -0,0 +1,36 @@
+package com.example.traveler.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+
+@Configuration
+public class ShardExecutorConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public ShardTaskExecutor shardTaskExecutor(PlatformTransactionManager transactionManager,
+                                               MeterRegistry meterRegistry,
+                                               @Value("${traveler.shards.count:16}") int shardCount,
+                                               @Value("${traveler.shards.max-pool-size:5}") int maxPoolSize,
+                                               @Value("${traveler.shards.executor.queue-capacity:256}") int queueCapacity,
+                                               @Value("${traveler.shards.executor.acquire-timeout-ms:200}") long acquireTimeoutMs,
+                                               @Value("${traveler.shards.executor.query-timeout-ms:5000}") long queryTimeoutMs,
+                                               @Value("${traveler.shards.circuit-breaker.failure-threshold:5}") int failureThreshold,
+                                               @Value("${traveler.shards.circuit-breaker.open-duration-ms:10000}") long openDurationMs,
+                                               @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        // Таймаут транзакції Hibernate переносить на JDBC statement timeout, тож повільний запит зупиняється і в БД
+        TransactionTemplate readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        readOnlyTransaction.setTimeout((int) Math.max(1, Duration.ofMillis(queryTimeoutMs).toSeconds()));
+
+        return new ShardTaskExecutor(shardCount, maxPoolSize, queueCapacity,
+                Duration.ofMillis(acquireTimeoutMs), Duration.ofMillis(queryTimeoutMs), readOnlyTransaction,
+                new ShardCircuitBreakers(failureThreshold, Duration.ofMillis(openDurationMs)), virtualThreads,
+                meterRegistry);
+    }
+}
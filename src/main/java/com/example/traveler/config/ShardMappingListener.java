@@ -0,0 +1,118 @@
+package com.example.traveler.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Тримає LISTEN-з'єднання до shard_catalog. Тригер на shard_mapping надсилає NOTIFY з ключем шарду
+ * (див. db/init-shards.sh), і маршрут цього шарду оновлюється одразу після ребалансування,
+ * а не після першої невдалої спроби клієнта.
+ * Зміни shard_buckets приходять окремим каналом і перечитують розподіл бакетів.
+ * Після втрати з'єднання listener перепідключається і робить повне оновлення, бо сповіщення
+ * за цей час могли загубитися.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "traveler.shards.catalog-listener.enabled", havingValue = "true", matchIfMissing = true)
+public class ShardMappingListener implements SmartLifecycle {
+
+    static final String CHANNEL = "shard_mapping_changed";
+    static final String BUCKETS_CHANNEL = "shard_buckets_changed";
+    private static final int POLL_TIMEOUT_MS = 5_000;
+    private static final long MAX_BACKOFF_MS = 30_000;
+
+    private final ShardingRoutingDataSource shardingDataSource;
+    private final BucketShardRouter shardRouter;
+
+    private volatile boolean running;
+    private Thread listenerThread;
+
+    @Override
+    public void start() {
+        running = true;
+        listenerThread = new Thread(this::listen, "shard-mapping-listener");
+        listenerThread.setDaemon(true);
+        listenerThread.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (listenerThread != null) listenerThread.interrupt();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void listen() {
+        long backoffMs = 1_000;
+        boolean reconnecting = false;
+
+        while (running) {
+            try (Connection conn = shardingDataSource.openCatalogConnection()) {
+                PGConnection pgConn = conn.unwrap(PGConnection.class);
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute("LISTEN " + CHANNEL);
+                    stmt.execute("LISTEN " + BUCKETS_CHANNEL);
+                }
+                log.info("Listening for shard mapping changes on '{}' and '{}'", CHANNEL, BUCKETS_CHANNEL);
+
+                if (reconnecting) {
+                    shardingDataSource.refreshDataSources();
+                    shardRouter.reload();
+                }
+                backoffMs = 1_000;
+
+                while (running) {
+                    PGNotification[] notifications = pgConn.getNotifications(POLL_TIMEOUT_MS);
+                    if (notifications == null || notifications.length == 0) continue;
+
+                    // Кілька змін одного шарду за раз — одне оновлення
+                    // Нові шарди мають з'явитися в пулах раніше, ніж на них переключаться бакети
+                    Set<String> shardKeys = new LinkedHashSet<>();
+                    boolean bucketsChanged = false;
+                    for (PGNotification notification : notifications) {
+                        if (BUCKETS_CHANNEL.equals(notification.getName())) {
+                            bucketsChanged = true;
+                        } else {
+                            shardKeys.add(notification.getParameter());
+                        }
+                    }
+                    for (String shardKey : shardKeys) {
+                        log.info("Shard mapping changed for shard {}", shardKey);
+                        shardingDataSource.refreshShard(shardKey);
+                    }
+                    if (bucketsChanged) {
+                        log.info("Bucket mapping changed");
+                        shardRouter.reload();
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (!running) break;
+                log.warn("Shard mapping listener failed: {}. Reconnecting in {} ms", e.getMessage(), backoffMs);
+                reconnecting = true;
+                try {
+                    Thread.sleep(backoffMs);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                backoffMs = Math.min(backoffMs * 2, MAX_BACKOFF_MS);
+            }
+        }
+    }
+}
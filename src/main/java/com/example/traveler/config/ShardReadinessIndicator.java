@@ -0,0 +1,44 @@
+package com.example.traveler.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.AbstractHealthIndicator;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Readiness шардів (/actuator/health/readiness, компонент "shards"): UP, коли пули всіх
+ * обов'язкових шардів прогріті. Перевірка читає лише стан прогріву, без запитів до БД.
+ * traveler.shards.readiness.required-shards порожній — обов'язкові всі шарди, на які зараз розподілені бакети.
+ */
+@Component("shards")
+public class ShardReadinessIndicator extends AbstractHealthIndicator {
+
+    private final ShardingRoutingDataSource shardingDataSource;
+    private final ShardRouter shardRouter;
+    private final List<String> requiredShards;
+
+    public ShardReadinessIndicator(ShardingRoutingDataSource shardingDataSource, ShardRouter shardRouter,
+                                   @Value("${traveler.shards.readiness.required-shards:}") List<String> requiredShards) {
+        super("Shard readiness check failed");
+        this.shardingDataSource = shardingDataSource;
+        this.shardRouter = shardRouter;
+        this.requiredShards = requiredShards;
+    }
+
+    @Override
+    protected void doHealthCheck(Health.Builder builder) {
+        List<String> required = requiredShards.isEmpty() ? shardRouter.shards() : requiredShards;
+        Map<String, String> shards = new TreeMap<>();
+        boolean ready = true;
+        for (String shardKey : required) {
+            boolean shardReady = shardingDataSource.isReady(shardKey);
+            shards.put(shardKey, shardReady ? "ready" : "warming up");
+            ready &= shardReady;
+        }
+        (ready ? builder.up() : builder.outOfService()).withDetail("shards", shards);
+    }
+}
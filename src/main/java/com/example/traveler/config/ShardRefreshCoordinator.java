@@ -0,0 +1,108 @@
+package com.example.traveler.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Вирішує, чи варто оновлювати маршрути шардів після помилки БД, і робить це без "thundering herd":
+ * - оновлення лише для помилок топології (шард недоступний / бази не існує), а не для
+ *   порушень обмежень, блокувань чи таймаутів запитів;
+ * - оновлюється лише шард, на якому сталася помилка (або вся мапа, якщо шард невідомий);
+ * - паралельні запити на оновлення того самого шарду зливаються в один (single-flight);
+ * - після оновлення діє пауза, яка подвоюється після невдалих спроб.
+ * Кожен виклик рахується в traveler.shard.refresh{shard, outcome=refreshed|failed|skipped|coalesced}.
+ */
+@Slf4j
+@Component
+public class ShardRefreshCoordinator {
+
+    public enum Outcome { REFRESHED, SKIPPED, FAILED }
+
+    private static final String ALL_SHARDS = "*";
+    private static final Duration MIN_INTERVAL = Duration.ofSeconds(1);
+    private static final Duration MAX_BACKOFF = Duration.ofSeconds(30);
+
+    private static final class Backoff {
+        private int failures;
+        private long notBefore;
+    }
+
+    private final ShardingRoutingDataSource shardingDataSource;
+    private final Map<String, CompletableFuture<Outcome>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, Backoff> backoffs = new ConcurrentHashMap<>();
+
+    private final MeterRegistry meterRegistry;
+
+    public ShardRefreshCoordinator(ShardingRoutingDataSource shardingDataSource, MeterRegistry meterRegistry) {
+        this.shardingDataSource = shardingDataSource;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /** Чи вказує помилка на зміну/недоступність шарду (а не на помилку застосунку). */
+    public boolean isTopologyError(Throwable ex) {
+        return ShardErrors.isConnectionFailure(ex);
+    }
+
+    /** Ключ шарду, на якому не вдалося отримати з'єднання, або null. */
+    public String affectedShard(Throwable ex) {
+        return ShardErrors.affectedShard(ex);
+    }
+
+    /** Оновлює маршрут шарду (null — усієї мапи). Паралельні виклики чекають одне спільне оновлення. */
+    public Outcome refresh(String shardKey) {
+        String key = shardKey != null ? shardKey : ALL_SHARDS;
+        Backoff backoff = backoffs.computeIfAbsent(key, k -> new Backoff());
+        synchronized (backoff) {
+            if (System.nanoTime() < backoff.notBefore) {
+                count(key, "skipped");
+                return Outcome.SKIPPED;
+            }
+        }
+
+        CompletableFuture<Outcome> mine = new CompletableFuture<>();
+        CompletableFuture<Outcome> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            count(key, "coalesced");
+            return running.join();
+        }
+
+        Outcome outcome;
+        try {
+            if (shardKey != null) {
+                shardingDataSource.refreshShard(shardKey);
+            } else {
+                shardingDataSource.refreshDataSources();
+            }
+            outcome = Outcome.REFRESHED;
+        } catch (RuntimeException e) {
+            log.error("Failed to refresh mapping for shard {}", key, e);
+            outcome = Outcome.FAILED;
+        }
+
+        synchronized (backoff) {
+            backoff.failures = outcome == Outcome.FAILED ? backoff.failures + 1 : 0;
+            long delay = Math.min(MIN_INTERVAL.toNanos() << Math.min(backoff.failures, 5), MAX_BACKOFF.toNanos());
+            backoff.notBefore = System.nanoTime() + delay;
+        }
+        inFlight.remove(key, mine);
+        mine.complete(outcome);
+        count(key, outcome.name().toLowerCase());
+        return outcome;
+    }
+
+    private void count(String shard, String outcome) {
+        Counter.builder("traveler.shard.refresh")
+                .description("Shard mapping refresh requests after topology errors")
+                .tag("shard", shard)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.traveler.config;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Визначає фізичний шард для ID. ID спершу потрапляє у віртуальний бакет (залежить лише від ID),
+ * а бакет — у шард згідно з каталогом; перенесення бакета на інший шард не змінює самих ID.
+ */
+public interface ShardRouter {
+
+    /** Кількість віртуальних бакетів: бакет — молодші 10 біт UUID (спільне для маршрутизації і генерації ID). */
+    int BUCKETS = 1024;
+
+    int bucketCount();
+
+    int bucketOf(UUID id);
+
+    String shardForBucket(int bucket);
+
+    default String shardFor(UUID id) {
+        return shardForBucket(bucketOf(id));
+    }
+
+    /** Усі фізичні шарди, на які зараз розподілені бакети (для запитів по всіх шардах). */
+    List<String> shards();
+}
@@ -0,0 +1,302 @@
+package com.example.traveler.config;
+
+import com.example.traveler.exception.ShardOverloadedException;
+import com.example.traveler.exception.ShardTimeoutException;
+import com.example.traveler.exception.ShardUnavailableException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Пул для scatter-gather запитів по шардах.
+ * - на кожен шард не більше permitsPerShard одночасних запитів (дорівнює розміру пулу Hikari шарду);
+ * - обмежена черга: при перевантаженні запит одразу відхиляється (503), а не стоїть у черзі;
+ * - кожна задача виконується в read-only транзакції з таймаутом, а future завершується
+ *   з таймаутом, навіть якщо шард не відповідає;
+ * - якщо одна з задач fan-out падає, решта скасовується;
+ * - шард з відкритим circuit breaker'ом відхиляється одразу, без очікування таймауту.
+ * Метрики з тегом shard: traveler.shard.query (час виконання, outcome=success|error),
+ * traveler.shard.queue.wait (від подання до старту задачі, включно з очікуванням дозволу),
+ * traveler.shard.in.flight і traveler.shard.breaker.state (0 — CLOSED, 1 — OPEN, 2 — HALF_OPEN).
+ * У режимі віртуальних потоків (Java 21+) кожна задача отримує власний віртуальний потік:
+ * блокуючий JDBC не займає платформні потоки, а паралелізм обмежують лише дозволи шардів.
+ */
+@Slf4j
+public class ShardTaskExecutor {
+
+    private final int permitsPerShard;
+    private final Duration acquireTimeout;
+    private final Duration queryTimeout;
+    private final TransactionOperations readOnlyTransaction;
+    private final ShardCircuitBreakers circuitBreakers;
+    private final Executor workers;
+    private final ThreadPoolExecutor platformPool; // null у режимі віртуальних потоків
+
+    private final Map<String, Semaphore> permits = new ConcurrentHashMap<>();
+    private final AtomicLong rejected = new AtomicLong();
+
+    private record ShardMeters(Timer success, Timer error, Timer queueWait) {}
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, ShardMeters> meters = new ConcurrentHashMap<>();
+
+    public ShardTaskExecutor(int shardCount, int permitsPerShard, int queueCapacity,
+                             Duration acquireTimeout, Duration queryTimeout,
+                             TransactionOperations readOnlyTransaction) {
+        this(shardCount, permitsPerShard, queueCapacity, acquireTimeout, queryTimeout, readOnlyTransaction,
+                new ShardCircuitBreakers(5, Duration.ofSeconds(10)), false, new SimpleMeterRegistry());
+    }
+
+    public ShardTaskExecutor(int shardCount, int permitsPerShard, int queueCapacity,
+                             Duration acquireTimeout, Duration queryTimeout,
+                             TransactionOperations readOnlyTransaction, ShardCircuitBreakers circuitBreakers,
+                             boolean virtualThreads, MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        FunctionCounter.builder("traveler.shard.executor.rejected", rejected, AtomicLong::get)
+                .description("Shard tasks rejected because a shard or the queue was saturated")
+                .register(meterRegistry);
+        this.permitsPerShard = permitsPerShard;
+        this.acquireTimeout = acquireTimeout;
+        this.queryTimeout = queryTimeout;
+        this.readOnlyTransaction = readOnlyTransaction;
+        this.circuitBreakers = circuitBreakers;
+
+        if (virtualThreads && Runtime.version().feature() >= 21) {
+            log.info("Shard queries run on virtual threads");
+            this.workers = new VirtualThreadTaskExecutor("shard-query-");
+            this.platformPool = null;
+            return;
+        }
+        if (virtualThreads) {
+            log.warn("Virtual threads require Java 21+, running on Java {}; using platform threads", Runtime.version().feature());
+        }
+
+        int threads = shardCount * permitsPerShard;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.platformPool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "shard-query-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.platformPool.allowCoreThreadTimeOut(true);
+        this.workers = platformPool;
+    }
+
+    /** Виконує задачу на шарді shardKey (ShardContext уже встановлено) у межах ліміту шарду. */
+    public <T> CompletableFuture<T> submit(String shardKey, Supplier<T> task) {
+        return submit(shardKey, task, true);
+    }
+
+    /**
+     * Як {@link #submit}, але задача сама відкриває транзакцію (із власним таймаутом) і може писати.
+     * Future не обривається за queryTimeout: інакше коміт, що встиг пройти, виглядав би як помилка.
+     */
+    public <T> CompletableFuture<T> submitWrite(String shardKey, Supplier<T> task) {
+        return submit(shardKey, task, false);
+    }
+
+    private <T> CompletableFuture<T> submit(String shardKey, Supplier<T> task, boolean readOnly) {
+        if (!circuitBreakers.tryAcquire(shardKey)) {
+            throw new ShardUnavailableException("Shard " + shardKey + " is temporarily unavailable");
+        }
+        long submittedAt = System.nanoTime();
+        Semaphore shardPermits = permits.computeIfAbsent(shardKey, this::newShardPermits);
+        ShardMeters shardMeters = meters.get(shardKey);
+        try {
+            if (!shardPermits.tryAcquire(acquireTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                rejected.incrementAndGet();
+                throw new ShardOverloadedException("Shard " + shardKey + " is saturated, try again later");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ShardOverloadedException("Interrupted while waiting for shard " + shardKey);
+        }
+
+        // Read-your-writes прив'язаний до потоку запиту, тож рішення про репліку приймається тут
+        boolean replica = readOnly && !ShardContext.isPinnedToPrimary();
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            workers.execute(() -> {
+                try {
+                    if (future.isDone()) return; // скасовано, поки чекала в черзі
+                    long startedAt = System.nanoTime();
+                    shardMeters.queueWait().record(startedAt - submittedAt, TimeUnit.NANOSECONDS);
+                    try {
+                        // Шард задається до початку транзакції, бо з'єднання береться саме тоді
+                        T result = ShardContext.callInShard(shardKey, replica,
+                                () -> readOnly ? readOnlyTransaction.execute(status -> task.get()) : task.get());
+                        shardMeters.success().record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+                        future.complete(result);
+                    } catch (Throwable e) {
+                        shardMeters.error().record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+                        throw e;
+                    }
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                } finally {
+                    shardPermits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            shardPermits.release();
+            rejected.incrementAndGet();
+            throw new ShardOverloadedException("Shard query queue is full, try again later");
+        }
+        if (readOnly) future.orTimeout(queryTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        future.whenComplete((result, error) -> recordOutcome(shardKey, error));
+        return future;
+    }
+
+    /**
+     * Запит до одного шарду в потоці викликача (ShardContext встановлює викликач): відкритий
+     * circuit breaker відхиляє його одразу, а результат оновлює стан breaker'а, як і для {@link #submit}.
+     */
+    public <T> T guard(String shardKey, Supplier<T> task) {
+        if (!circuitBreakers.tryAcquire(shardKey)) {
+            throw new ShardUnavailableException("Shard " + shardKey + " is temporarily unavailable");
+        }
+        try {
+            T result = task.get();
+            recordOutcome(shardKey, null);
+            return result;
+        } catch (RuntimeException e) {
+            recordOutcome(shardKey, e);
+            throw e;
+        }
+    }
+
+    // Дозволи і метрики шарду створюються разом, при першому зверненні до нього
+    private Semaphore newShardPermits(String shardKey) {
+        Timer.Builder query = Timer.builder("traveler.shard.query")
+                .description("Shard task execution time")
+                .tag("shard", shardKey);
+        meters.put(shardKey, new ShardMeters(
+                query.tag("outcome", "success").register(meterRegistry),
+                query.tag("outcome", "error").register(meterRegistry),
+                Timer.builder("traveler.shard.queue.wait")
+                        .description("Time from submission until a shard task starts")
+                        .tag("shard", shardKey)
+                        .register(meterRegistry)));
+        Gauge.builder("traveler.shard.in.flight", () -> getInFlight(shardKey))
+                .tag("shard", shardKey)
+                .register(meterRegistry);
+        Gauge.builder("traveler.shard.breaker.state", () -> getBreakerState(shardKey).ordinal())
+                .tag("shard", shardKey)
+                .register(meterRegistry);
+        return new Semaphore(permitsPerShard);
+    }
+
+    // Для circuit breaker'а збій — лише таймаут або недоступність вузла; скасування ігнорується
+    private void recordOutcome(String shardKey, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause == null) {
+            circuitBreakers.onSuccess(shardKey);
+        } else if (cause instanceof TimeoutException || ShardErrors.isConnectionFailure(cause)) {
+            circuitBreakers.onFailure(shardKey);
+        } else if (!(cause instanceof CancellationException)) {
+            circuitBreakers.onSuccess(shardKey); // шард відповів, помилка на боці запиту
+        }
+    }
+
+    /**
+     * Запускає задачу на всіх шардах і чекає всі результати.
+     * Перша помилка скасовує решту задач і прокидається викликачу.
+     */
+    public <T> Map<String, T> invokeAll(Collection<String> shardKeys, Function<String, T> task) {
+        Map<String, CompletableFuture<T>> futures = new LinkedHashMap<>();
+        try {
+            for (String shardKey : shardKeys) {
+                futures.put(shardKey, submit(shardKey, () -> task.apply(shardKey)));
+            }
+        } catch (RuntimeException e) {
+            cancelAll(futures.values());
+            throw e;
+        }
+        AtomicReference<String> failedShard = new AtomicReference<>();
+        CompletableFuture<Void> firstFailure = new CompletableFuture<>();
+        futures.forEach((shardKey, future) -> future.whenComplete((result, error) -> {
+            if (error != null && failedShard.compareAndSet(null, shardKey)) {
+                firstFailure.completeExceptionally(error);
+                cancelAll(futures.values());
+            }
+        }));
+
+        CompletableFuture<Void> allDone = CompletableFuture.allOf(futures.values().toArray(CompletableFuture[]::new));
+        CompletableFuture.anyOf(firstFailure, allDone).exceptionally(error -> null).join();
+        if (firstFailure.isCompletedExceptionally()) {
+            join(failedShard.get(), firstFailure);
+        }
+
+        Map<String, T> results = new LinkedHashMap<>();
+        futures.forEach((shardKey, future) -> results.put(shardKey, future.join()));
+        return results;
+    }
+
+    /** Чекає результат і розгортає CompletionException, щоб помилки БД дійшли до GlobalExceptionHandler. */
+    public static <T> T join(String shardKey, CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException | CancellationException e) {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof TimeoutException) {
+                throw new ShardTimeoutException("Shard " + shardKey + " did not respond in time");
+            }
+            if (cause instanceof RuntimeException runtime) throw runtime;
+            throw new IllegalStateException("Shard " + shardKey + " query failed", cause);
+        }
+    }
+
+    public static void cancelAll(Collection<? extends CompletableFuture<?>> futures) {
+        List<CompletableFuture<?>> snapshot = new ArrayList<>(futures);
+        snapshot.forEach(f -> f.cancel(false));
+    }
+
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    public ShardCircuitBreakers.State getBreakerState(String shardKey) {
+        return circuitBreakers.getState(shardKey);
+    }
+
+    public int getInFlight(String shardKey) {
+        Semaphore shardPermits = permits.get(shardKey);
+        return shardPermits == null ? 0 : permitsPerShard - shardPermits.availablePermits();
+    }
+
+    public void shutdown() {
+        log.info("Shutting down shard query executor");
+        if (platformPool != null) platformPool.shutdownNow();
+    }
+}
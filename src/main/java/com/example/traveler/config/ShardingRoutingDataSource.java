@@ -1,61 +1,481 @@
 package com.example.traveler.config;
 
 import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
 
+import javax.sql.DataSource;
 import java.sql.*;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Маршрутизація запитів у пул потрібного шарду.
+ * Топологія (shard_key -> jdbc_url) оновлюється інкрементально: пули шардів, чий URL не змінився,
+ * переживають refresh; нові пули створюються лише для нових/переміщених шардів; старі пули
+ * виводяться з маршрутизації атомарно і закриваються після того, як повернуть активні з'єднання.
+ * <p>
+ * Шард може мати репліки (shard_mapping.replica_urls, через кому): read-only дії
+ * ({@link ShardContext#isReplicaRead()}) отримують з'єднання до реплік по колу, а якщо репліка
+ * недоступна — до primary. Репліка, що не дала з'єднання за REPLICA_CONNECTION_TIMEOUT, на
+ * REPLICA_COOLDOWN виключається з ротації: читання йдуть одразу на primary, без повторних спроб
+ * до неї. Записи завжди йдуть на primary.
+ * <p>
+ * Кожен пул публікує метрики Hikari (hikaricp.connections.active/pending/timeout...) з тегом
+ * pool=shard-&lt;key&gt; або shard-&lt;key&gt;-replica-&lt;n&gt;; пул, створений на заміну живому
+ * (переїзд шарду), отримує суфікс покоління, щоб закриття старого не прибрало його метрики.
+ * <p>
+ * Нові пули прогріваються паралельно у фоні (перше з'єднання ініціалізує пул Hikari); пул, чий вузол
+ * недоступний, повторює спробу з паузою, доки вузол не підніметься. {@link #isReady(String)} —
+ * для readiness-проби. На старті ({@link #initialize()}) каталог читається з повторами, тож короткий
+ * рестарт postgres_00 не зриває старт; refresh під час роботи робить одну спробу і падає швидко.
+ */
+@Slf4j
 public class ShardingRoutingDataSource extends AbstractRoutingDataSource {
 
-    // URL до каталогу (завжди на postgres_00)
-    private final String CATALOG_URL = "jdbc:postgresql://postgres_00:5432/shard_catalog";
-    private final String DB_USER = "postgres";
-    private final String DB_PASS = "09125689";
+    /**
+     * Підключення до каталогу шардів (traveler.shards.catalog.*); ті самі облікові дані — для пулів шардів.
+     * Лише на старті: до connectAttempts спроб, пауза подвоюється від retryBackoff (не більше
+     * CATALOG_MAX_BACKOFF), а всі повтори разом укладаються в retryTimeout.
+     */
+    public record CatalogSettings(String url, String username, String password,
+                                  int connectAttempts, Duration retryBackoff, Duration retryTimeout) {}
+
+    private static final Duration CATALOG_MAX_BACKOFF = Duration.ofSeconds(5);
+    // Таймаут TCP-з'єднання до каталогу (секунди, параметр pgjdbc connectTimeout)
+    private static final int CATALOG_CONNECT_TIMEOUT_SECONDS = 5;
+
+    private static final int WARM_UP_THREADS = 8;
+    private static final Duration WARM_UP_MAX_BACKOFF = Duration.ofSeconds(10);
+
+    // Очікування з'єднання з реплікою — значно менше за таймаут задачі шарду (5 с), щоб лишився
+    // час прочитати з primary; після невдачі репліка пропускається на REPLICA_COOLDOWN
+    private static final Duration REPLICA_CONNECTION_TIMEOUT = Duration.ofSeconds(1);
+    private static final Duration REPLICA_COOLDOWN = Duration.ofSeconds(30);
+
+    private static final Duration RETIRE_GRACE = Duration.ofSeconds(30);
+    private static final Duration RETIRE_POLL = Duration.ofSeconds(1);
+
+    private record ShardRoute(String primaryUrl, List<String> replicaUrls) {}
+
+    // Пул одного вузла (primary або репліки); unhealthyUntil — до якого моменту (nanoTime) вузол пропускається
+    private record Endpoint(String jdbcUrl, HikariDataSource dataSource, AtomicLong unhealthyUntil) {
+
+        Endpoint(String jdbcUrl, HikariDataSource dataSource) {
+            this(jdbcUrl, dataSource, new AtomicLong(System.nanoTime()));
+        }
+
+        boolean isHealthy() {
+            return System.nanoTime() - unhealthyUntil.get() >= 0;
+        }
+
+        void markUnhealthy(Duration cooldown) {
+            unhealthyUntil.set(System.nanoTime() + cooldown.toNanos());
+        }
+    }
+
+    private record ShardPool(String jdbcUrl, HikariDataSource dataSource, List<Endpoint> replicas, AtomicInteger nextReplica) {}
+
+    /**
+     * Знімок топології. Шарди з однолітерним hex-ключем ("0".."f" — схема за замовчуванням)
+     * знаходяться через масив за номером шарду, без хешування рядка; решта ключів (напр., "3b"
+     * після розщеплення) — через мапу. Рядкові ключі лишаються як у каталозі.
+     */
+    private record Topology(Map<String, ShardPool> byKey, ShardPool[] byNumber) {
+
+        static Topology of(Map<String, ShardPool> byKey) {
+            ShardPool[] byNumber = new ShardPool[16];
+            byKey.forEach((key, pool) -> {
+                int number = shardNumber(key);
+                if (number >= 0) byNumber[number] = pool;
+            });
+            return new Topology(Map.copyOf(byKey), byNumber);
+        }
+
+        ShardPool get(Object lookupKey) {
+            if (lookupKey instanceof String key) {
+                int number = shardNumber(key);
+                if (number >= 0) return byNumber[number];
+            }
+            return byKey.get(lookupKey);
+        }
+
+        // Номер шарду для ключа з одного символу [0-9a-f], інакше -1
+        private static int shardNumber(String key) {
+            return key.length() == 1 ? Character.digit(key.charAt(0), 16) : -1;
+        }
+    }
+
+    private final int maxPoolSize;
+    private final CatalogSettings catalog;
+    private final MicrometerMetricsTrackerFactory metricsTrackerFactory; // null — без метрик
+    private final Map<String, Integer> poolGenerations = new HashMap<>();
+
+    // Незмінний знімок топології; заміна посилання — атомарне перемикання маршрутизації
+    private volatile Topology topology = Topology.of(Map.of());
+
+    private final ScheduledExecutorService retirements = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "shard-pool-retirement");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Прогрів пулу завершується, коли вдалося отримати перше з'єднання
+    private final Map<HikariDataSource, CompletableFuture<Void>> warmUps = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService warmers = Executors.newScheduledThreadPool(WARM_UP_THREADS, runnable -> {
+        Thread thread = new Thread(runnable, "shard-pool-warm-up");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ShardingRoutingDataSource(int maxPoolSize, CatalogSettings catalog, MeterRegistry meterRegistry) {
+        this.maxPoolSize = maxPoolSize;
+        this.catalog = catalog;
+        this.metricsTrackerFactory = meterRegistry != null ? new MicrometerMetricsTrackerFactory(meterRegistry) : null;
+        // Власна мапа шардів замість resolvedDataSources батьківського класу,
+        // але afterPropertiesSet() вимагає, щоб targetDataSources був заданий
+        this.setTargetDataSources(new HashMap<>());
+    }
 
     @Override
     protected Object determineCurrentLookupKey() {
         return ShardContext.getShard();
     }
 
-    public void refreshDataSources() {
-        System.out.println("Connecting to Shard Catalog DB...");
+    @Override
+    protected DataSource determineTargetDataSource() {
+        Topology current = topology;
+        Object lookupKey = determineCurrentLookupKey();
 
-        Map<Object, Object> targetDataSources = new HashMap<>();
+        ShardPool pool = lookupKey != null ? current.get(lookupKey) : defaultPool(current.byKey());
+        if (pool == null) {
+            throw new IllegalStateException("Cannot determine target DataSource for lookup key [" + lookupKey + "]");
+        }
+        return pool.dataSource();
+    }
 
-        // Використовуємо чистий JDBC для отримання конфігурації
-        try (Connection conn = DriverManager.getConnection(CATALOG_URL, DB_USER, DB_PASS);
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery("SELECT shard_key, jdbc_url FROM shard_mapping")) {
-
-            while (rs.next()) {
-                String key = rs.getString("shard_key");
-                String url = rs.getString("jdbc_url");
-
-                HikariDataSource ds = new HikariDataSource();
-                ds.setJdbcUrl(url);
-                ds.setUsername(DB_USER);
-                ds.setPassword(DB_PASS);
-                ds.setDriverClassName("org.postgresql.Driver");
-                ds.setMaximumPoolSize(5);
-                ds.setMinimumIdle(1);
-
-                targetDataSources.put(key, ds);
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (ShardContext.isReplicaRead()) {
+            Endpoint replica = pickReplica();
+            if (replica != null) {
+                try {
+                    return replica.dataSource().getConnection();
+                } catch (SQLException | RuntimeException e) {
+                    // Hikari кидає PoolInitializationException, якщо вузол недоступний при ініціалізації пулу
+                    replica.markUnhealthy(REPLICA_COOLDOWN);
+                    log.warn("Endpoint {} unavailable, reading from primary for {} s: {}",
+                            replica.jdbcUrl(), REPLICA_COOLDOWN.toSeconds(), e.getMessage());
+                }
             }
-            System.out.println("Loaded " + targetDataSources.size() + " shards from DB.");
+        }
+        try {
+            return super.getConnection();
+        } catch (SQLException e) {
+            throw wrap(e);
+        }
+    }
 
+    // Наступна справна репліка по колу; null — реплік немає або всі на cooldown
+    private Endpoint pickReplica() {
+        Object lookupKey = determineCurrentLookupKey();
+        ShardPool pool = lookupKey != null ? topology.get(lookupKey) : null;
+        if (pool == null || pool.replicas().isEmpty()) return null;
+        List<Endpoint> replicas = pool.replicas();
+        int start = pool.nextReplica().getAndIncrement();
+        for (int i = 0; i < replicas.size(); i++) {
+            Endpoint replica = replicas.get(Math.floorMod(start + i, replicas.size()));
+            if (replica.isHealthy()) return replica;
+        }
+        return null;
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        try {
+            return super.getConnection(username, password);
+        } catch (SQLException e) {
+            throw wrap(e);
+        }
+    }
+
+    private SQLException wrap(SQLException e) {
+        Object lookupKey = determineCurrentLookupKey();
+        return lookupKey == null || e instanceof ShardConnectionException ? e : new ShardConnectionException(lookupKey.toString(), e);
+    }
+
+    /** Перше завантаження топології на старті: каталог може бути ще недоступний, тому з повторами. */
+    public synchronized void initialize() {
+        applyMapping(loadMapping(null, true), true);
+    }
+
+    /** Повне оновлення: перечитує весь shard_mapping (одна спроба з'єднання з каталогом). */
+    public synchronized void refreshDataSources() {
+        applyMapping(loadMapping(null, false), true);
+    }
+
+    /** Оновлює маршрут лише одного шарду; решта пулів не зачіпається. */
+    public synchronized void refreshShard(String shardKey) {
+        Map<String, ShardRoute> mapping = loadMapping(shardKey, false);
+        if (mapping.isEmpty()) {
+            log.warn("Shard {} not found in catalog, keeping current route", shardKey);
+            return;
+        }
+        applyMapping(mapping, false);
+    }
+
+    // full == false: mapping містить лише частину шардів, відсутні в ній не видаляються
+    private void applyMapping(Map<String, ShardRoute> mapping, boolean full) {
+        Map<String, ShardPool> current = topology.byKey();
+
+        Map<String, ShardPool> next = new HashMap<>(full ? Map.of() : current);
+        List<Endpoint> retired = new ArrayList<>();
+        int created = 0;
+
+        for (Map.Entry<String, ShardRoute> entry : mapping.entrySet()) {
+            String key = entry.getKey();
+            ShardRoute route = entry.getValue();
+            ShardPool existing = current.get(key);
+
+            HikariDataSource primary;
+            if (existing != null && existing.jdbcUrl().equals(route.primaryUrl())) {
+                primary = existing.dataSource();
+            } else {
+                primary = createPool("shard-" + key, route.primaryUrl(), false);
+                created++;
+                if (existing != null) {
+                    log.info("Shard {} moved: {} -> {}", key, existing.jdbcUrl(), route.primaryUrl());
+                    retired.add(new Endpoint(existing.jdbcUrl(), existing.dataSource()));
+                }
+            }
+
+            // Пули реплік з тим самим URL переживають refresh, зниклі — виводяться
+            Map<String, Endpoint> oldReplicas = new HashMap<>();
+            if (existing != null) existing.replicas().forEach(replica -> oldReplicas.put(replica.jdbcUrl(), replica));
+            List<Endpoint> replicas = new ArrayList<>();
+            for (String replicaUrl : route.replicaUrls()) {
+                Endpoint replica = oldReplicas.remove(replicaUrl);
+                if (replica == null) {
+                    replica = new Endpoint(replicaUrl, createPool("shard-" + key + "-replica-" + replicas.size(), replicaUrl, true));
+                    created++;
+                }
+                replicas.add(replica);
+            }
+            retired.addAll(oldReplicas.values());
+
+            boolean unchanged = existing != null && primary == existing.dataSource() && replicas.equals(existing.replicas());
+            next.put(key, unchanged ? existing
+                    : new ShardPool(route.primaryUrl(), primary, List.copyOf(replicas), new AtomicInteger()));
+        }
+        if (full) {
+            current.forEach((key, pool) -> {
+                if (!mapping.containsKey(key)) {
+                    retired.add(new Endpoint(pool.jdbcUrl(), pool.dataSource()));
+                    retired.addAll(pool.replicas());
+                }
+            });
+        }
+
+        topology = Topology.of(next);
+        retired.forEach(this::retire);
+        warmUp();
+
+        log.info("Shard topology refreshed ({}): {} shards, {} new pools, {} retired",
+                full ? "full" : "shards " + mapping.keySet(), next.size(), created, retired.size());
+    }
+
+    // shardKey == null — усі шарди; retry — лише на старті: refresh викликається з потоків запитів
+    // і тримає монітор, тож під час роботи недоступний каталог має давати помилку одразу
+    private Map<String, ShardRoute> loadMapping(String shardKey, boolean retry) {
+        log.debug("Connecting to Shard Catalog DB...");
+
+        // Використовуємо чистий JDBC для отримання конфігурації
+        try (Connection conn = retry ? openCatalogConnectionWithRetry() : openCatalogConnection()) {
+            try {
+                return queryMapping(conn, shardKey, true);
+            } catch (SQLException e) {
+                // Каталог без колонки replica_urls (до міграції) — лише primary
+                if (!"42703".equals(e.getSQLState())) throw e;
+                return queryMapping(conn, shardKey, false);
+            }
         } catch (SQLException e) {
             throw new RuntimeException("Failed to load shard mapping from DB", e);
         }
+    }
+
+    private Map<String, ShardRoute> queryMapping(Connection conn, String shardKey, boolean withReplicas) throws SQLException {
+        Map<String, ShardRoute> mapping = new HashMap<>();
+        String sql = "SELECT shard_key, jdbc_url" + (withReplicas ? ", replica_urls" : "") + " FROM shard_mapping"
+                + (shardKey == null ? "" : " WHERE shard_key = ?");
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            if (shardKey != null) stmt.setString(1, shardKey);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    List<String> replicaUrls = withReplicas ? parseReplicaUrls(rs.getString("replica_urls")) : List.of();
+                    mapping.put(rs.getString("shard_key"), new ShardRoute(rs.getString("jdbc_url"), replicaUrls));
+                }
+            }
+        }
+        return mapping;
+    }
+
+    private static List<String> parseReplicaUrls(String replicaUrls) {
+        if (replicaUrls == null || replicaUrls.isBlank()) return List.of();
+        return Arrays.stream(replicaUrls.split(","))
+                .map(String::trim)
+                .filter(url -> !url.isEmpty())
+                .distinct()
+                .toList();
+    }
 
-        this.setTargetDataSources(targetDataSources);
+    /** Окреме (не з пулу) з'єднання до каталогу шардів, одна спроба. */
+    public Connection openCatalogConnection() throws SQLException {
+        Properties props = new Properties();
+        props.setProperty("user", catalog.username());
+        props.setProperty("password", catalog.password());
+        props.setProperty("connectTimeout", Integer.toString(CATALOG_CONNECT_TIMEOUT_SECONDS));
+        return DriverManager.getConnection(catalog.url(), props);
+    }
 
-        // Встановлюємо дефолтний
-        if (!targetDataSources.isEmpty()) {
-            this.setDefaultTargetDataSource(targetDataSources.values().iterator().next());
+    /**
+     * Як {@link #openCatalogConnection()}, але з повторами — лише для старту. Пауза між спробами
+     * обмежена CATALOG_MAX_BACKOFF, а всі спроби — catalog.retryTimeout.
+     */
+    public Connection openCatalogConnectionWithRetry() throws SQLException {
+        long deadline = System.nanoTime() + catalog.retryTimeout().toNanos();
+        long backoffMs = catalog.retryBackoff().toMillis();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return openCatalogConnection();
+            } catch (SQLException e) {
+                long remainingMs = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (attempt >= catalog.connectAttempts() || remainingMs <= backoffMs) throw e;
+                log.warn("Shard catalog unavailable (attempt {}/{}): {}. Retrying in {} ms",
+                        attempt, catalog.connectAttempts(), e.getMessage(), backoffMs);
+                try {
+                    Thread.sleep(backoffMs);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+                backoffMs = Math.min(backoffMs * 2, CATALOG_MAX_BACKOFF.toMillis());
+            }
         }
+    }
+
+    /**
+     * Прогріває всі пули поточної топології паралельно (вже прогріті не чіпає).
+     * Future завершується, коли прогріто всі пули; недоступні вузли тримають його незавершеним.
+     */
+    public CompletableFuture<Void> warmUp() {
+        List<CompletableFuture<Void>> pending = new ArrayList<>();
+        topology.byKey().values().forEach(pool -> {
+            pending.add(warmUp(pool.dataSource()));
+            pool.replicas().forEach(replica -> pending.add(warmUp(replica.dataSource())));
+        });
+        return CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new));
+    }
+
+    private CompletableFuture<Void> warmUp(HikariDataSource dataSource) {
+        return warmUps.computeIfAbsent(dataSource, ds -> {
+            CompletableFuture<Void> done = new CompletableFuture<>();
+            warmers.execute(() -> tryWarmUp(ds, done, Math.max(100, catalog.retryBackoff().toMillis())));
+            return done;
+        });
+    }
+
+    private void tryWarmUp(HikariDataSource dataSource, CompletableFuture<Void> done, long backoffMs) {
+        if (dataSource.isClosed() || warmers.isShutdown()) return;
+        try (Connection ignored = dataSource.getConnection()) {
+            done.complete(null);
+            log.debug("Pool {} warmed up", dataSource.getPoolName());
+        } catch (SQLException | RuntimeException e) {
+            // Hikari кидає PoolInitializationException, якщо вузол недоступний при ініціалізації пулу
+            log.warn("Pool {} is not reachable yet: {}. Retrying in {} ms", dataSource.getPoolName(), e.getMessage(), backoffMs);
+            long nextBackoffMs = Math.min(backoffMs * 2, WARM_UP_MAX_BACKOFF.toMillis());
+            warmers.schedule(() -> tryWarmUp(dataSource, done, nextBackoffMs), backoffMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /** Чи прогрітий primary-пул шарду (шард хоча б раз відповів з моменту створення пулу). */
+    public boolean isReady(String shardKey) {
+        ShardPool pool = topology.get(shardKey);
+        if (pool == null) return false;
+        CompletableFuture<Void> warmUp = warmUps.get(pool.dataSource());
+        return warmUp != null && warmUp.isDone();
+    }
+
+    // Викликається лише з synchronized refresh*
+    private HikariDataSource createPool(String poolName, String url, boolean readOnly) {
+        int generation = poolGenerations.merge(poolName, 1, Integer::sum);
+        HikariDataSource ds = new HikariDataSource();
+        ds.setPoolName(generation == 1 ? poolName : poolName + "-" + generation);
+        if (metricsTrackerFactory != null) ds.setMetricsTrackerFactory(metricsTrackerFactory);
+        ds.setReadOnly(readOnly);
+        ds.setJdbcUrl(url);
+        ds.setUsername(catalog.username());
+        ds.setPassword(catalog.password());
+        ds.setDriverClassName("org.postgresql.Driver");
+        ds.setMaximumPoolSize(maxPoolSize);
+        ds.setMinimumIdle(1);
+        if (readOnly) {
+            // Недоступна репліка не повинна з'їдати таймаут задачі: і очікування в пулі, і TCP connect короткі
+            ds.setConnectionTimeout(REPLICA_CONNECTION_TIMEOUT.toMillis());
+            ds.addDataSourceProperty("connectTimeout", Long.toString(REPLICA_CONNECTION_TIMEOUT.toSeconds()));
+        }
+        // Драйвер склеює батч INSERT'ів в один багаторядковий INSERT
+        ds.addDataSourceProperty("reWriteBatchedInserts", "true");
+        return ds;
+    }
+
+    // Вільні з'єднання закриваються одразу, зайняті — після повернення в пул; пул закривається,
+    // коли активних з'єднань не лишилось або минув RETIRE_GRACE
+    private void retire(Endpoint pool) {
+        HikariPoolMXBean mxBean = pool.dataSource().getHikariPoolMXBean();
+        if (mxBean != null) mxBean.softEvictConnections();
+        drain(pool, System.nanoTime() + RETIRE_GRACE.toNanos());
+    }
+
+    private void drain(Endpoint pool, long deadline) {
+        HikariPoolMXBean mxBean = pool.dataSource().getHikariPoolMXBean();
+        boolean idle = mxBean == null || mxBean.getActiveConnections() == 0;
+        if (idle || System.nanoTime() >= deadline || retirements.isShutdown()) {
+            log.info("Closing retired pool for {} (drained: {})", pool.jdbcUrl(), idle);
+            pool.dataSource().close();
+            warmUps.remove(pool.dataSource());
+            return;
+        }
+        retirements.schedule(() -> drain(pool, deadline), RETIRE_POLL.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private static ShardPool defaultPool(Map<String, ShardPool> current) {
+        // Дефолтний пул потрібен для з'єднань без шарду (напр., метадані Hibernate при старті)
+        ShardPool first = current.get("0");
+        return first != null ? first : current.values().stream().findFirst().orElse(null);
+    }
 
-        this.afterPropertiesSet();
+    public void close() {
+        retirements.shutdownNow();
+        warmers.shutdownNow();
+        topology.byKey().values().forEach(pool -> {
+            pool.dataSource().close();
+            pool.replicas().forEach(replica -> replica.dataSource().close());
+        });
     }
-}
\ No newline at end of file
+}
@@ -1,30 +1,53 @@
 package com.example.traveler.controller;
 
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import com.example.traveler.dto.*;
 import com.example.traveler.service.LocationService;
+import com.example.traveler.service.PlanETag;
+import com.example.traveler.service.PlanListing;
 import com.example.traveler.service.TravelPlanService;
 
+import java.util.List;
 import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/travel-plans")
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = {HttpHeaders.ETAG, TravelPlanController.SKIPPED_SHARDS_HEADER})
 @RequiredArgsConstructor
 public class TravelPlanController {
 
+    static final String SKIPPED_SHARDS_HEADER = "X-Skipped-Shards";
+
     private final TravelPlanService travelPlanService;
     private final LocationService locationService; // Потрібен для додавання локацій
 
     @GetMapping // [cite: 47]
-    public Page<PlanSummaryResponse> listPlans(Pageable pageable) {
-        return travelPlanService.getAllPlans(pageable);
+    public ResponseEntity<Page<PlanSummaryResponse>> listPlans(Pageable pageable,
+                                                               @RequestParam(defaultValue = "false") boolean exactCount,
+                                                               @RequestParam(defaultValue = "false") boolean partial) {
+        // За замовчуванням total береться з кешу лічильників; exactCount=true — точний COUNT по шардах.
+        // partial=true — повільні/недоступні шарди пропускаються і перелічуються в X-Skipped-Shards
+        PlanListing listing = travelPlanService.getAllPlans(pageable, exactCount, partial);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (!listing.skippedShards().isEmpty()) {
+            response.header(SKIPPED_SHARDS_HEADER, String.join(",", listing.skippedShards()));
+        }
+        return response.body(listing.page());
+    }
+
+    // Keyset-пагінація для нескінченної прокрутки: ?cursor= (перша сторінка), далі ?cursor=<nextCursor>
+    @GetMapping(params = "cursor")
+    public PlanScrollResponse scrollPlans(@RequestParam(defaultValue = "") String cursor, Pageable pageable) {
+        return travelPlanService.scrollPlans(cursor, pageable);
     }
 
     @PostMapping // [cite: 47]
@@ -34,17 +57,32 @@ public class TravelPlanController {
         return ResponseEntity.status(HttpStatus.CREATED).body(createdPlan);
     }
 
+    // Масове створення: 201, якщо створено все, інакше 207 з результатом по кожному елементу
+    @PostMapping("/batch")
+    public ResponseEntity<List<BatchItemResult<PlanResponse>>> createPlans(
+            @RequestBody @Size(min = 1, max = 1000) List<@Valid CreatePlanRequest> requests) {
+        List<BatchItemResult<PlanResponse>> results = travelPlanService.createPlans(requests);
+        boolean allCreated = results.stream().allMatch(result -> "CREATED".equals(result.status()));
+        return ResponseEntity.status(allCreated ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS).body(results);
+    }
+
     @GetMapping("/{id}") // [cite: 48]
-    public ResponseEntity<PlanResponse> getPlan(@PathVariable UUID id) {
+    public ResponseEntity<PlanResponse> getPlan(@PathVariable UUID id, WebRequest webRequest) {
+        // Умовний GET: тег перевіряється запитом лише по версіях (або з кешу), без повного завантаження
+        if (webRequest.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                && webRequest.checkNotModified(travelPlanService.getPlanETag(id))) {
+            return null; // 304 Not Modified, заголовки виставив checkNotModified
+        }
         PlanResponse plan = travelPlanService.getPlanById(id);
-        return ResponseEntity.ok(plan); // 200 OK
+        return ResponseEntity.ok().eTag(PlanETag.of(plan)).body(plan); // 200 OK
     }
 
     @PutMapping("/{id}") // [cite: 48]
     public ResponseEntity<PlanResponse> updatePlan(@PathVariable UUID id,
-                                                   @Valid @RequestBody UpdatePlanRequest request) {
-        PlanResponse updatedPlan = travelPlanService.updatePlan(id, request);
-        return ResponseEntity.ok(updatedPlan); // 200 OK
+                                                   @Valid @RequestBody UpdatePlanRequest request,
+                                                   @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        PlanResponse updatedPlan = travelPlanService.updatePlan(id, request, ifMatch);
+        return ResponseEntity.ok().eTag(PlanETag.of(updatedPlan)).body(updatedPlan); // 200 OK
     }
 
     @DeleteMapping("/{id}") // [cite: 48]
@@ -59,4 +97,19 @@ public class TravelPlanController {
         LocationDTO newLocation = locationService.addLocationToPlan(id, request);
         return ResponseEntity.status(HttpStatus.CREATED).body(newLocation); // 201 Created
     }
-}
\ No newline at end of file
+
+    // Масове додавання (імпорт): один запит, одна транзакція, JDBC-батчі
+    @PostMapping("/{id}/locations/batch")
+    public ResponseEntity<List<LocationDTO>> addLocations(@PathVariable UUID id,
+                                                          @RequestBody @Size(min = 1, max = 500) List<@Valid CreateLocationRequest> requests) {
+        List<LocationDTO> newLocations = locationService.addLocationsToPlan(id, requests);
+        return ResponseEntity.status(HttpStatus.CREATED).body(newLocations);
+    }
+
+    // Перестановка всіх локацій плану одним запитом (drag-and-drop)
+    @PutMapping("/{id}/locations/order")
+    public ResponseEntity<LocationOrderResponse> reorderLocations(@PathVariable UUID id,
+                                                                  @Valid @RequestBody ReorderLocationsRequest request) {
+        return ResponseEntity.ok(locationService.reorderLocations(id, request));
+    }
+}
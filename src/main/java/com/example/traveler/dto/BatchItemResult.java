@@ -0,0 +1,23 @@
+package com.example.traveler.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Результат одного елемента масової операції; index — позиція в запиті.
+ * status: CREATED або FAILED (тоді заповнено error).
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BatchItemResult<T>(
+        int index,
+        String status,
+        T result,
+        String error
+) {
+    public static <T> BatchItemResult<T> created(int index, T result) {
+        return new BatchItemResult<>(index, "CREATED", result, null);
+    }
+
+    public static <T> BatchItemResult<T> failed(int index, String error) {
+        return new BatchItemResult<>(index, "FAILED", null, error);
+    }
+}
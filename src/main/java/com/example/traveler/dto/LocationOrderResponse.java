@@ -0,0 +1,11 @@
+package com.example.traveler.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.List;
+
+public record LocationOrderResponse(
+        // Нова версія плану — для наступного reorder
+        @JsonProperty("planVersion") Integer planVersion,
+
+        List<LocationDTO> locations
+) {}
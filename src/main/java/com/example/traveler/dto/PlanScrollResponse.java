@@ -0,0 +1,11 @@
+package com.example.traveler.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.List;
+
+public record PlanScrollResponse(
+        List<PlanSummaryResponse> content,
+
+        // null — більше сторінок немає
+        @JsonProperty("nextCursor") String nextCursor
+) {}
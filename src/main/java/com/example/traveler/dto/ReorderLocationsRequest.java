@@ -0,0 +1,21 @@
+package com.example.traveler.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+import java.util.UUID;
+
+public record ReorderLocationsRequest(
+        // Усі локації плану в новому порядку
+        @NotEmpty @Size(max = 1000)
+        @JsonProperty("locationIds") List<@NotNull UUID> locationIds,
+
+        // Версія плану, яку бачив клієнт
+        @NotNull
+        @Min(0)
+        @JsonProperty("version") Integer version
+) {}
@@ -3,7 +3,6 @@ package com.example.traveler.dto;
 import com.fasterxml.jackson.annotation.JsonFormat;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.validation.constraints.DecimalMin;
-import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Pattern;
@@ -33,7 +32,7 @@ public record UpdatePlanRequest(
         @JsonProperty("isPublic")
         boolean isPublic,
 
-        @NotNull
+        // Можна не передавати, якщо є заголовок If-Match
         @Min(0)
         @JsonProperty("version") Integer version
 ) {}
\ No newline at end of file
@@ -1,22 +1,33 @@
 package com.example.traveler.exception;
 
-import com.example.traveler.config.ShardingRoutingDataSource;
+import com.example.traveler.config.ShardRefreshCoordinator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.persistence.OptimisticLockException;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.NestedRuntimeException;
 import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.TransientDataAccessException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.validation.method.ParameterErrors;
+import org.springframework.validation.method.ParameterValidationResult;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.method.annotation.HandlerMethodValidationException;
 
 import java.io.IOException;
 import java.time.format.DateTimeParseException;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.stream.Collectors;
 
@@ -25,32 +36,102 @@ import java.util.stream.Collectors;
 @Slf4j
 public class GlobalExceptionHandler {
 
-    private final ShardingRoutingDataSource shardingDataSource;
+    private final ShardRefreshCoordinator refreshCoordinator;
+    private final MeterRegistry meterRegistry;
 
-    // Обробка помилок БД і спроба ребалансування (оновлення мапінгу)
-    @ExceptionHandler(DataAccessException.class)
-    public ResponseEntity<?> handleDbException(DataAccessException ex, HttpServletRequest request) {
-        log.error("Database error occurred: {}. Trying to refresh mapping...", ex.getMessage());
+    // Обробка помилок БД: маршрути оновлюються лише якщо шард недоступний/переїхав
+    @ExceptionHandler({DataAccessException.class, CannotCreateTransactionException.class})
+    public ResponseEntity<?> handleDbException(NestedRuntimeException ex, HttpServletRequest request) {
+        if (!refreshCoordinator.isTopologyError(ex)) {
+            return handleApplicationDbError(ex);
+        }
+
+        String shardKey = refreshCoordinator.affectedShard(ex);
+        log.error("Shard {} unreachable: {}. Trying to refresh mapping...", shardKey != null ? shardKey : "?", ex.getMessage());
 
-        try {
-            shardingDataSource.refreshDataSources();
+        if (refreshCoordinator.refresh(shardKey) == ShardRefreshCoordinator.Outcome.FAILED) {
+            return ResponseEntity.internalServerError().body(Map.of("error", "Critical system error during rebalancing"));
+        }
+        // Повертаємо 503, щоб клієнт спробував ще раз
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header("Retry-After", "1")
+                .body(Map.of("error", "Sharding map refreshed. Please try again."));
+    }
 
-            // Повертаємо 503, щоб клієнт спробував ще раз
+    private ResponseEntity<?> handleApplicationDbError(NestedRuntimeException ex) {
+        if (ex instanceof OptimisticLockingFailureException) {
+            countConflict("jpa-version");
+            return buildErrorResponse(HttpStatus.CONFLICT, "Conflict: the resource was updated by another user. Please refresh.");
+        }
+        if (ex instanceof DataIntegrityViolationException) {
+            log.warn("Data integrity violation: {}", ex.getMostSpecificCause().getMessage());
+            return buildErrorResponse(HttpStatus.CONFLICT, "Data integrity violation");
+        }
+        if (ex instanceof TransientDataAccessException) {
+            log.warn("Transient database error: {}", ex.getMessage());
             return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
                     .header("Retry-After", "1")
-                    .body(Map.of("error", "Sharding map refreshed. Please try again."));
-
-        } catch (Exception e) {
-            log.error("Failed to refresh mapping", e);
-            return ResponseEntity.internalServerError().body(Map.of("error", "Critical system error during rebalancing"));
+                    .body(Map.of(
+                            "status", HttpStatus.SERVICE_UNAVAILABLE.value(),
+                            "error", HttpStatus.SERVICE_UNAVAILABLE.getReasonPhrase(),
+                            "message", "Temporary database error. Please try again."
+                    ));
         }
+        log.error("Database error occurred", ex);
+        return buildErrorResponse(HttpStatus.INTERNAL_SERVER_ERROR, "An unexpected error occurred.");
+    }
+
+    // Перевантаження пулу запитів до шардів: швидка відмова замість черги
+    @ExceptionHandler(ShardOverloadedException.class)
+    public ResponseEntity<Object> handleShardOverloaded(ShardOverloadedException ex, WebRequest request) {
+        log.warn("Shard executor rejected request: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header("Retry-After", "1")
+                .body(Map.of(
+                        "status", HttpStatus.SERVICE_UNAVAILABLE.value(),
+                        "error", HttpStatus.SERVICE_UNAVAILABLE.getReasonPhrase(),
+                        "message", ex.getMessage()
+                ));
+    }
+
+    @ExceptionHandler(ShardUnavailableException.class)
+    public ResponseEntity<Object> handleShardUnavailable(ShardUnavailableException ex, WebRequest request) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header("Retry-After", "5")
+                .body(Map.of(
+                        "status", HttpStatus.SERVICE_UNAVAILABLE.value(),
+                        "error", HttpStatus.SERVICE_UNAVAILABLE.getReasonPhrase(),
+                        "message", ex.getMessage()
+                ));
+    }
+
+    @ExceptionHandler(ShardTimeoutException.class)
+    public ResponseEntity<Object> handleShardTimeout(ShardTimeoutException ex, WebRequest request) {
+        log.warn("Shard query timed out: {}", ex.getMessage());
+        return buildErrorResponse(HttpStatus.GATEWAY_TIMEOUT, ex.getMessage());
     }
 
     @ExceptionHandler({OptimisticLockException.class})
     public ResponseEntity<Object> handleOptimisticLockException(OptimisticLockException ex, WebRequest request) {
+        countConflict("version-check");
         return buildErrorResponse(HttpStatus.CONFLICT, ex.getMessage());
     }
 
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<Object> handlePreconditionFailed(PreconditionFailedException ex, WebRequest request) {
+        countConflict("if-match");
+        return buildErrorResponse(HttpStatus.PRECONDITION_FAILED, ex.getMessage());
+    }
+
+    // source: version-check — застаріла version у запиті, jpa-version — @Version при flush, if-match — ETag
+    private void countConflict(String source) {
+        Counter.builder("traveler.optimistic.conflicts")
+                .description("Updates rejected because the resource changed concurrently")
+                .tag("source", source)
+                .register(meterRegistry)
+                .increment();
+    }
+
     @ExceptionHandler(EntityNotFoundException.class)
     public ResponseEntity<Object> handleEntityNotFoundException(EntityNotFoundException ex, WebRequest request) {
         return buildErrorResponse(HttpStatus.NOT_FOUND, ex.getMessage());
@@ -95,6 +176,31 @@ public class GlobalExceptionHandler {
         ));
     }
 
+    // Валідація параметрів-колекцій (напр., List<@Valid CreateLocationRequest>)
+    @ExceptionHandler(HandlerMethodValidationException.class)
+    public ResponseEntity<Object> handleMethodValidationException(HandlerMethodValidationException ex, WebRequest request) {
+        Map<String, String> errors = new LinkedHashMap<>();
+        for (ParameterValidationResult result : ex.getParameterValidationResults()) {
+            String parameter = result.getMethodParameter().getParameterName()
+                    + (result.getContainerIndex() != null ? "[" + result.getContainerIndex() + "]" : "");
+            if (result instanceof ParameterErrors parameterErrors) {
+                parameterErrors.getFieldErrors().forEach(fieldError -> errors.merge(
+                        parameter + "." + fieldError.getField(), fieldError.getDefaultMessage(),
+                        (existing, replacement) -> existing + "; " + replacement));
+            } else {
+                result.getResolvableErrors().forEach(error -> errors.merge(
+                        parameter, error.getDefaultMessage(),
+                        (existing, replacement) -> existing + "; " + replacement));
+            }
+        }
+
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of(
+                "status", HttpStatus.BAD_REQUEST.value(),
+                "error", "Validation error",
+                "messages", errors
+        ));
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Object> handleGenericException(Exception ex, WebRequest request) {
         log.error("Unexpected error", ex); // Логуємо повний стек-трейс
@@ -0,0 +1,8 @@
+package com.example.traveler.exception;
+
+// If-Match не збігся з поточним ETag ресурсу (412)
+public class PreconditionFailedException extends RuntimeException {
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.traveler.exception;
+
+// Шард або пул запитів перевантажений — клієнту варто повторити пізніше (503)
+public class ShardOverloadedException extends RuntimeException {
+    public ShardOverloadedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.traveler.exception;
+
+// Шард не відповів за відведений час (504)
+public class ShardTimeoutException extends RuntimeException {
+    public ShardTimeoutException(String message) {
+        super(message);
+    }
+}
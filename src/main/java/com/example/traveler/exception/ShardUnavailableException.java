@@ -0,0 +1,8 @@
+package com.example.traveler.exception;
+
+// Шард тимчасово виключено circuit breaker'ом — клієнту варто повторити пізніше (503)
+public class ShardUnavailableException extends RuntimeException {
+    public ShardUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -57,6 +57,10 @@ public class TravelPlan {
     @Column(nullable = false)
     private OffsetDateTime updatedAt;
 
+    // Останній виданий visitOrder; змінюється лише атомарним UPDATE у TravelPlanRepository
+    @Column(insertable = false, updatable = false)
+    private Integer lastVisitOrder;
+
     // Зв'язок з локаціями
     @OneToMany(
             mappedBy = "travelPlan",
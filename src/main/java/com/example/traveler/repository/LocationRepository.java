@@ -1,6 +1,7 @@
 package com.example.traveler.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -22,4 +23,28 @@ public interface LocationRepository extends JpaRepository<Location, UUID> {
     Optional<Integer> findMaxVisitOrderByTravelPlanId(@Param("planId") UUID planId);
 
     List<Location> findAllByTravelPlanIdOrderByVisitOrderAsc(UUID travelPlanId);
+
+    @Query("SELECT l.id FROM Location l WHERE l.travelPlan.id = :planId")
+    List<UUID> findIdsByTravelPlanId(@Param("planId") UUID planId);
+
+    /**
+     * Перша фаза перестановки: переносить усі visit_order плану у від'ємні значення,
+     * щоб друга фаза не конфліктувала з унікальним (travel_plan_id, visit_order).
+     */
+    @Modifying
+    @Query(value = "UPDATE locations SET visit_order = -visit_order WHERE travel_plan_id = :planId", nativeQuery = true)
+    int parkVisitOrders(@Param("planId") UUID planId);
+
+    /**
+     * Друга фаза: visit_order = позиція id у масиві orderedIds ('{id1,id2,...}'), одним UPDATE.
+     * Версія кожної локації збільшується, тож старі PUT /api/locations/{id} отримають 409.
+     */
+    @Modifying(clearAutomatically = true)
+    @Query(value = """
+            UPDATE locations
+            SET visit_order = array_position(CAST(:orderedIds AS uuid[]), id),
+                version = COALESCE(version, 0) + 1
+            WHERE travel_plan_id = :planId
+            """, nativeQuery = true)
+    int applyVisitOrders(@Param("planId") UUID planId, @Param("orderedIds") String orderedIds);
 }
\ No newline at end of file
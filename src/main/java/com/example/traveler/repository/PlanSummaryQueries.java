@@ -0,0 +1,21 @@
+package com.example.traveler.repository;
+
+import com.example.traveler.model.TravelPlan;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+public interface PlanSummaryQueries {
+
+    /** Перші limit рядків, що задовольняють spec, у порядку orderBy — одразу як {@link PlanSummaryRow}. */
+    List<PlanSummaryRow> findSummaries(Specification<TravelPlan> spec, OrderBy orderBy, int limit);
+
+    /** ORDER BY як вирази Criteria (не лише колонки, як у {@link org.springframework.data.domain.Sort}). */
+    @FunctionalInterface
+    interface OrderBy {
+        List<Order> toOrders(Root<TravelPlan> root, CriteriaBuilder cb);
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.traveler.repository;
+
+import com.example.traveler.model.TravelPlan;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+// Фрагмент TravelPlanRepository: SELECT лише потрібних колонок через конструктор PlanSummaryRow
+class PlanSummaryQueriesImpl implements PlanSummaryQueries {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<PlanSummaryRow> findSummaries(Specification<TravelPlan> spec, OrderBy orderBy, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<PlanSummaryRow> query = cb.createQuery(PlanSummaryRow.class);
+        Root<TravelPlan> root = query.from(TravelPlan.class);
+
+        query.select(cb.construct(PlanSummaryRow.class,
+                root.get("id"), root.get("title"), root.get("startDate"), root.get("endDate"),
+                root.get("budget"), root.get("currency"), root.get("isPublic"), root.get("version"),
+                root.get("createdAt")));
+        Predicate where = spec.toPredicate(root, query, cb);
+        if (where != null) query.where(where);
+        query.orderBy(orderBy.toOrders(root, cb));
+
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+}
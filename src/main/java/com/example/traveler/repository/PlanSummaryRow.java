@@ -0,0 +1,22 @@
+package com.example.traveler.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Рядок списку планів: лише колонки сторінки списку та ключів сортування (без description і
+ * без керованої сутності). createdAt потрібен тільки для сортування.
+ */
+public record PlanSummaryRow(
+        UUID id,
+        String title,
+        LocalDate startDate,
+        LocalDate endDate,
+        BigDecimal budget,
+        String currency,
+        boolean isPublic,
+        Integer version,
+        OffsetDateTime createdAt
+) {}
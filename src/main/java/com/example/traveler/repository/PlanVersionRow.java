@@ -0,0 +1,13 @@
+package com.example.traveler.repository;
+
+import java.util.UUID;
+
+/**
+ * Версія плану і версія однієї його локації (locationId == null, якщо локацій немає).
+ * Достатньо для обчислення ETag без завантаження сутностей.
+ */
+public record PlanVersionRow(
+        Integer planVersion,
+        UUID locationId,
+        Integer locationVersion
+) {}
@@ -1,11 +1,54 @@
 package com.example.traveler.repository;
 
 import com.example.traveler.model.TravelPlan;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
-public interface TravelPlanRepository extends JpaRepository<TravelPlan, UUID> {
+public interface TravelPlanRepository extends JpaRepository<TravelPlan, UUID>, PlanSummaryQueries {
+
+    /**
+     * План разом з локаціями одним запитом (LEFT JOIN FETCH, порядок з @OrderBy).
+     * Сутності read-only: Hibernate не тримає для них знімків для dirty checking.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("SELECT p FROM TravelPlan p LEFT JOIN FETCH p.locations WHERE p.id = :id")
+    Optional<TravelPlan> findWithLocationsById(@Param("id") UUID id);
+
+    /**
+     * Лише версії плану та його локацій (для ETag); порожньо, якщо плану немає.
+     */
+    @Query("""
+            SELECT new com.example.traveler.repository.PlanVersionRow(p.version, l.id, l.version)
+            FROM TravelPlan p LEFT JOIN p.locations l
+            WHERE p.id = :id
+            """)
+    List<PlanVersionRow> findVersionsById(@Param("id") UUID id);
 
-}
\ No newline at end of file
+    /**
+     * Атомарно резервує count наступних visitOrder плану і повертає останній з них
+     * (порожньо, якщо плану немає).
+     * Виконується окремою короткою транзакцією: рядок плану блокується лише на час цього UPDATE.
+     * MAX по локаціях підхоплює порядки, виставлені вручну, і старі плани без лічильника.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Query(value = """
+            UPDATE travel_plans
+            SET last_visit_order = GREATEST(COALESCE(last_visit_order, 0),
+                    (SELECT COALESCE(MAX(l.visit_order), 0) FROM locations l WHERE l.travel_plan_id = :planId)) + :count
+            WHERE id = :planId
+            RETURNING last_visit_order
+            """, nativeQuery = true)
+    Optional<Integer> allocateVisitOrders(@Param("planId") UUID planId, @Param("count") int count);
+}
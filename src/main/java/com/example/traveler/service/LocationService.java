@@ -1,21 +1,32 @@
 package com.example.traveler.service;
 
 import com.example.traveler.config.ShardContext;
+import com.example.traveler.config.ShardRouter;
+import com.example.traveler.config.ShardTaskExecutor;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.persistence.LockModeType;
 import jakarta.persistence.OptimisticLockException;
+import jakarta.persistence.PersistenceException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.support.TransactionTemplate;
 import com.example.traveler.dto.CreateLocationRequest;
 import com.example.traveler.dto.LocationDTO;
+import com.example.traveler.dto.LocationOrderResponse;
+import com.example.traveler.dto.ReorderLocationsRequest;
 import com.example.traveler.dto.UpdateLocationRequest;
 import com.example.traveler.model.Location;
 import com.example.traveler.model.TravelPlan;
 import com.example.traveler.repository.LocationRepository;
+import com.example.traveler.repository.TravelPlanRepository;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -24,50 +35,137 @@ public class LocationService {
     private final LocationRepository locationRepository;
     private final EntityManager entityManager;
     private final TransactionTemplate transactionTemplate; // Додаємо це
+    private final ShardRouter shardRouter;
+    private final TravelPlanRepository travelPlanRepository;
+    private final PlanDetailCache planDetailCache;
+    private final ShardTaskExecutor shardTaskExecutor;
+
+    private static final int MAX_APPEND_ATTEMPTS = 3;
 
     public LocationDTO addLocationToPlan(UUID planId, CreateLocationRequest request) {
-        if (request.departureDate() != null && request.arrivalDate() != null && request.departureDate().isBefore(request.arrivalDate())) {
-            throw new IllegalStateException("Departure date cannot be before arrival date");
+        return appendLocations(planId, List.of(request)).get(0);
+    }
+
+    /**
+     * Додає локації в кінець плану однією транзакцією: номери visitOrder резервуються одним UPDATE,
+     * а вставки йдуть JDBC-батчами (hibernate.jdbc.batch_size).
+     */
+    public List<LocationDTO> addLocationsToPlan(UUID planId, List<CreateLocationRequest> requests) {
+        return appendLocations(planId, requests);
+    }
+
+    private List<LocationDTO> appendLocations(UUID planId, List<CreateLocationRequest> requests) {
+        for (CreateLocationRequest request : requests) {
+            if (request.departureDate() != null && request.arrivalDate() != null && request.departureDate().isBefore(request.arrivalDate())) {
+                throw new IllegalStateException("Departure date cannot be before arrival date");
+            }
         }
 
-        String shardKey = getShardKey(planId);
+        String shardKey = shardRouter.shardFor(planId);
         ShardContext.setShard(shardKey);
 
         try {
-            // Відкриваємо транзакцію програмно
-            return transactionTemplate.execute(status -> {
-                TravelPlan plan = entityManager.find(
-                        TravelPlan.class,
-                        planId,
-                        LockModeType.PESSIMISTIC_WRITE
-                );
-
-                if (plan == null) {
-                    throw new EntityNotFoundException("Plan not found with id: " + planId);
+            for (int attempt = 1; ; attempt++) {
+                // Номери видаються атомарним UPDATE ... RETURNING, а не PESSIMISTIC_WRITE + MAX:
+                // паралельні додавання до одного плану не чекають одне на одного до кінця транзакції
+                int lastOrder = shardTaskExecutor.guard(shardKey,
+                                () -> travelPlanRepository.allocateVisitOrders(planId, requests.size()))
+                        .orElseThrow(() -> new EntityNotFoundException("Plan not found with id: " + planId));
+                int firstOrder = lastOrder - requests.size() + 1;
+                try {
+                    List<LocationDTO> created = shardTaskExecutor.guard(shardKey, () -> transactionTemplate.execute(status -> {
+                        TravelPlan plan = entityManager.getReference(TravelPlan.class, planId);
+                        List<Location> locations = new ArrayList<>(requests.size());
+                        for (int i = 0; i < requests.size(); i++) {
+                            Location location = newLocation(plan, requests.get(i), firstOrder + i);
+                            // ID заданий вручну: persist замість save, щоб не робити зайвий SELECT
+                            entityManager.persist(location);
+                            locations.add(location);
+                        }
+                        try {
+                            entityManager.flush();
+                        } catch (PersistenceException e) {
+                            throw PersistenceErrors.translate(e);
+                        }
+                        return locations.stream().map(this::toLocationDTO).collect(Collectors.toList());
+                    }));
+                    planDetailCache.invalidate(planId);
+                    return created;
+                } catch (DataIntegrityViolationException e) {
+                    // План видалили між allocateVisitOrders і вставкою — FK на travel_plans
+                    if (PersistenceErrors.hasSqlState(e, PersistenceErrors.FOREIGN_KEY_VIOLATION)) {
+                        throw new EntityNotFoundException("Plan not found with id: " + planId);
+                    }
+                    // Номер міг зайняти updateLocation з ручним visitOrder — резервуємо нові
+                    if (!PersistenceErrors.hasSqlState(e, PersistenceErrors.UNIQUE_VIOLATION)
+                            || attempt >= MAX_APPEND_ATTEMPTS) throw e;
                 }
+            }
+        } finally {
+            ShardContext.clear();
+        }
+    }
 
-                int maxOrder = locationRepository.findMaxVisitOrderByTravelPlanId(planId)
-                        .orElse(0);
+    private Location newLocation(TravelPlan plan, CreateLocationRequest request, int visitOrder) {
+        Location location = new Location();
+
+        // Генеруємо ID в тому ж бакеті, що й план, — локація завжди лежить у шарді плану
+        location.setId(ShardIdGenerator.timeOrderedId(shardRouter.bucketOf(plan.getId())));
+
+        location.setName(request.name());
+        location.setAddress(request.address());
+        location.setNotes(request.notes());
+        location.setBudget(request.budget());
+        location.setLatitude(request.latitude());
+        location.setLongitude(request.longitude());
+        location.setArrivalDate(request.arrivalDate());
+        location.setDepartureDate(request.departureDate());
+        location.setTravelPlan(plan);
+        location.setVisitOrder(visitOrder);
+        return location;
+    }
 
-                Location location = new Location();
+    /**
+     * Атомарна перестановка всіх локацій плану: перевірка версії плану і два UPDATE
+     * (через від'ємні значення) замість N окремих PUT.
+     */
+    public LocationOrderResponse reorderLocations(UUID planId, ReorderLocationsRequest request) {
+        List<UUID> orderedIds = request.locationIds();
+        if (new HashSet<>(orderedIds).size() != orderedIds.size()) {
+            throw new IllegalStateException("Location ids must not repeat");
+        }
 
-                // Генеруємо ID в тому ж шарді
-                UUID locationId = generateIdForShard(shardKey);
-                location.setId(locationId);
+        String shardKey = shardRouter.shardFor(planId);
+        ShardContext.setShard(shardKey);
 
-                location.setName(request.name());
-                location.setAddress(request.address());
-                location.setNotes(request.notes());
-                location.setBudget(request.budget());
-                location.setLatitude(request.latitude());
-                location.setLongitude(request.longitude());
-                location.setArrivalDate(request.arrivalDate());
-                location.setDepartureDate(request.departureDate());
-                location.setTravelPlan(plan);
-                location.setVisitOrder(maxOrder + 1);
+        try {
+            LocationOrderResponse response = shardTaskExecutor.guard(shardKey, () -> transactionTemplate.execute(status -> {
+                TravelPlan plan = travelPlanRepository.findById(planId)
+                        .orElseThrow(() -> new EntityNotFoundException("Plan not found with id: " + planId));
+                if (!plan.getVersion().equals(request.version())) {
+                    throw new OptimisticLockException("Conflict: Plan (id: " + planId + ") was updated by another user. Please refresh.");
+                }
+                // Версія плану збільшується одразу (UPDATE ... WHERE version = ?), тож два паралельні
+                // reorder з однією версією не пройдуть обидва
+                entityManager.lock(plan, LockModeType.PESSIMISTIC_FORCE_INCREMENT);
+                Integer planVersion = plan.getVersion();
+
+                if (!new HashSet<>(locationRepository.findIdsByTravelPlanId(planId)).equals(new HashSet<>(orderedIds))) {
+                    throw new IllegalStateException("Location ids must list every location of the plan exactly once");
+                }
 
-                return toLocationDTO(locationRepository.save(location));
-            });
+                locationRepository.parkVisitOrders(planId);
+                locationRepository.applyVisitOrders(planId, orderedIds.stream()
+                        .map(UUID::toString)
+                        .collect(Collectors.joining(",", "{", "}")));
+
+                List<LocationDTO> locations = locationRepository.findAllByTravelPlanIdOrderByVisitOrderAsc(planId).stream()
+                        .map(this::toLocationDTO)
+                        .collect(Collectors.toList());
+                return new LocationOrderResponse(planVersion, locations);
+            }));
+            planDetailCache.invalidate(planId);
+            return response;
         } finally {
             ShardContext.clear();
         }
@@ -78,11 +176,11 @@ public class LocationService {
             throw new IllegalStateException("Departure date cannot be before arrival date");
         }
 
-        String shardKey = getShardKey(locationId);
+        String shardKey = shardRouter.shardFor(locationId);
         ShardContext.setShard(shardKey);
 
         try {
-            return transactionTemplate.execute(status -> {
+            LocationDTO updated = shardTaskExecutor.guard(shardKey, () -> transactionTemplate.execute(status -> {
                 Location location = locationRepository.findById(locationId)
                         .orElseThrow(() -> new EntityNotFoundException("Location not found with id: " + locationId));
 
@@ -104,24 +202,27 @@ public class LocationService {
                 }
 
                 return toLocationDTO(locationRepository.saveAndFlush(location));
-            });
+            }));
+            planDetailCache.invalidate(updated.travelPlanId());
+            return updated;
         } finally {
             ShardContext.clear();
         }
     }
 
     public void deleteLocation(UUID locationId) {
-        String shardKey = getShardKey(locationId);
+        String shardKey = shardRouter.shardFor(locationId);
         ShardContext.setShard(shardKey);
 
         try {
-            transactionTemplate.execute(status -> {
-                if (!locationRepository.existsById(locationId)) {
-                    throw new EntityNotFoundException("Location not found with id: " + locationId);
-                }
-                locationRepository.deleteById(locationId);
-                return null;
-            });
+            // findById замість existsById: id плану потрібен для інвалідації кешу
+            UUID planId = shardTaskExecutor.guard(shardKey, () -> transactionTemplate.execute(status -> {
+                Location location = locationRepository.findById(locationId)
+                        .orElseThrow(() -> new EntityNotFoundException("Location not found with id: " + locationId));
+                locationRepository.delete(location);
+                return location.getTravelPlan().getId();
+            }));
+            planDetailCache.invalidate(planId);
         } finally {
             ShardContext.clear();
         }
@@ -133,17 +234,4 @@ public class LocationService {
                 loc.getLatitude(), loc.getLongitude(), loc.getVisitOrder(), loc.getNotes(),
                 loc.getArrivalDate(), loc.getDepartureDate(), loc.getBudget(), loc.getVersion());
     }
-
-    private String getShardKey(UUID id) {
-        String uuidStr = id.toString();
-        return String.valueOf(uuidStr.charAt(uuidStr.length() - 1));
-    }
-
-    private UUID generateIdForShard(String targetShardKey) {
-        UUID uuid;
-        do {
-            uuid = UUID.randomUUID();
-        } while (!getShardKey(uuid).equals(targetShardKey));
-        return uuid;
-    }
 }
\ No newline at end of file
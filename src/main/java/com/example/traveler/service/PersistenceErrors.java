@@ -0,0 +1,36 @@
+package com.example.traveler.service;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+
+import java.sql.SQLException;
+
+/**
+ * Помилки прямих викликів EntityManager (persist/flush поза репозиторіями). Spring транслює винятки
+ * лише для @Repository-проксі, тож тут Hibernate ConstraintViolationException приходить як є —
+ * {@link #translate} перетворює його так само, як це зробив би репозиторій.
+ */
+final class PersistenceErrors {
+
+    static final String UNIQUE_VIOLATION = "23505";
+    static final String FOREIGN_KEY_VIOLATION = "23503";
+
+    private static final HibernateJpaDialect DIALECT = new HibernateJpaDialect();
+
+    private PersistenceErrors() {
+    }
+
+    /** DataAccessException (напр., DataIntegrityViolationException) або сам ex, якщо трансляції немає. */
+    static RuntimeException translate(RuntimeException ex) {
+        DataAccessException translated = DIALECT.translateExceptionIfPossible(ex);
+        return translated != null ? translated : ex;
+    }
+
+    /** Чи спричинена помилка порушенням обмеження з вказаним SQLState. */
+    static boolean hasSqlState(Throwable ex, String sqlState) {
+        for (Throwable t = ex; t != null; t = t.getCause() == t ? null : t.getCause()) {
+            if (t instanceof SQLException sql && sqlState.equals(sql.getSQLState())) return true;
+        }
+        return false;
+    }
+}
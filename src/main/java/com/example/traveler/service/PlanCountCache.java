@@ -0,0 +1,42 @@
+package com.example.traveler.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Кількість планів по шардах у пам'яті, щоб не виконувати 16 COUNT(*) на кожен запит списку.
+ * Оновлюється інкрементально після успішних createPlan/deletePlan і періодично
+ * звіряється з базою (записи в обхід сервісу виправляються при наступній звірці).
+ */
+@Component
+public class PlanCountCache {
+
+    private final Map<String, AtomicLong> perShard = new ConcurrentHashMap<>();
+    private volatile boolean initialized = false;
+
+    public boolean isInitialized() {
+        return initialized;
+    }
+
+    public long total() {
+        return perShard.values().stream().mapToLong(AtomicLong::get).sum();
+    }
+
+    public void increment(String shardKey) {
+        if (initialized) perShard.computeIfAbsent(shardKey, k -> new AtomicLong()).incrementAndGet();
+    }
+
+    public void decrement(String shardKey) {
+        if (initialized) perShard.computeIfAbsent(shardKey, k -> new AtomicLong()).decrementAndGet();
+    }
+
+    /** Замінює значення точними лічильниками з бази; шарди, яких немає в exactCounts, видаляються. */
+    public void reset(Map<String, Long> exactCounts) {
+        perShard.keySet().retainAll(exactCounts.keySet());
+        exactCounts.forEach((shard, count) -> perShard.computeIfAbsent(shard, k -> new AtomicLong()).set(count));
+        initialized = true;
+    }
+}
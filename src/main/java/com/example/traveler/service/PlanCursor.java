@@ -0,0 +1,81 @@
+package com.example.traveler.service;
+
+import com.example.traveler.repository.PlanSummaryRow;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Непрозорий continuation token для keyset-пагінації: порядок сортування
+ * та ключ (значення сортування + id) останнього відданого рядка для кожного шарду.
+ */
+final class PlanCursor {
+
+    private record Token(List<String> sort, Map<String, List<String>> positions) {}
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final PlanOrdering ordering;
+    private final Map<String, PlanSummaryRow> positions;
+
+    private PlanCursor(PlanOrdering ordering, Map<String, PlanSummaryRow> positions) {
+        this.ordering = ordering;
+        this.positions = positions;
+    }
+
+    /** Перша сторінка: порядок з запиту, жоден шард ще не читався. */
+    static PlanCursor start(Sort sort) {
+        return new PlanCursor(PlanOrdering.of(sort), Map.of());
+    }
+
+    static PlanCursor decode(String token) {
+        try {
+            Token decoded = MAPPER.readValue(Base64.getUrlDecoder().decode(token), Token.class);
+            List<Sort.Order> orders = new ArrayList<>();
+            for (String order : decoded.sort()) {
+                String[] parts = order.split(",");
+                orders.add(new Sort.Order(Sort.Direction.fromString(parts[1]), parts[0]));
+            }
+            PlanOrdering ordering = PlanOrdering.of(Sort.by(orders));
+
+            Map<String, PlanSummaryRow> positions = new HashMap<>();
+            decoded.positions().forEach((shard, key) -> positions.put(shard, ordering.fromKey(key)));
+            return new PlanCursor(ordering, positions);
+        } catch (IllegalStateException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException("Invalid cursor", e);
+        }
+    }
+
+    static String encode(PlanOrdering ordering, Map<String, PlanSummaryRow> lastTaken) {
+        List<String> sort = new ArrayList<>();
+        for (Sort.Order order : ordering.sort()) {
+            sort.add(order.getProperty() + "," + order.getDirection());
+        }
+        Map<String, List<String>> positions = new HashMap<>();
+        lastTaken.forEach((shard, plan) -> positions.put(shard, ordering.keyOf(plan)));
+
+        try {
+            byte[] json = MAPPER.writeValueAsString(new Token(sort, positions)).getBytes(StandardCharsets.UTF_8);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(json);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to encode cursor", e);
+        }
+    }
+
+    PlanOrdering ordering() {
+        return ordering;
+    }
+
+    Map<String, PlanSummaryRow> positions() {
+        return positions;
+    }
+}
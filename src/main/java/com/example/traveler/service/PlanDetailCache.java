@@ -0,0 +1,75 @@
+package com.example.traveler.service;
+
+import com.example.traveler.dto.PlanResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Кеш PlanResponse за id плану (Caffeine, W-TinyLFU, обмежений за розміром).
+ * - зміни плану чи його локацій у цьому інстансі прибирають запис синхронно, після коміту;
+ *   завантаження, що йшло паралельно, завершується до видалення, тож старе значення не лишається;
+ * - updatePlan кладе нову відповідь, лише якщо її version не менша за закешовану;
+ * - план, змінений нещодавно (вікно відставання реплік), завантажується з primary;
+ * - expireAfterWrite обмежує застарілість для змін через інші інстанси.
+ * Метрики: cache.gets{result=hit|miss}, cache.evictions, cache.size з тегом cache=planDetails.
+ */
+@Component
+public class PlanDetailCache {
+
+    private final Cache<UUID, PlanResponse> plans;
+    private final Cache<UUID, Boolean> recentlyWritten;
+
+    public PlanDetailCache(@Value("${traveler.plan-cache.maximum-size:10000}") long maximumSize,
+                           @Value("${traveler.plan-cache.expire-after-write-ms:30000}") long expireAfterWriteMs,
+                           @Value("${traveler.shards.replicas.read-your-writes-ms:0}") long replicaLagMs,
+                           MeterRegistry meterRegistry) {
+        this.plans = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofMillis(expireAfterWriteMs))
+                .recordStats()
+                .build();
+        this.recentlyWritten = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofMillis(Math.max(1, replicaLagMs)))
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, plans, "planDetails");
+    }
+
+    /**
+     * Значення з кешу або loader(fromReplica). fromReplica == false, якщо план щойно змінювали
+     * і репліка може ще не мати цієї зміни. Винятки loader'а (напр., план не знайдено) не кешуються.
+     */
+    public PlanResponse get(UUID planId, Function<Boolean, PlanResponse> loader) {
+        return plans.get(planId, id -> loader.apply(canReadFromReplica(id)));
+    }
+
+    public PlanResponse getIfPresent(UUID planId) {
+        return plans.getIfPresent(planId);
+    }
+
+    /** false, якщо план змінювали в межах вікна відставання реплік. */
+    public boolean canReadFromReplica(UUID planId) {
+        return recentlyWritten.getIfPresent(planId) == null;
+    }
+
+    /** Після updatePlan: нова відповідь замінює закешовану, якщо вона не старша. */
+    public void updated(PlanResponse plan) {
+        recentlyWritten.put(plan.id(), Boolean.TRUE);
+        plans.asMap().computeIfPresent(plan.id(),
+                (id, cached) -> cached.version() == null || plan.version() >= cached.version() ? plan : cached);
+    }
+
+    /** Після видалення плану або зміни його локацій. */
+    public void invalidate(UUID planId) {
+        recentlyWritten.put(planId, Boolean.TRUE);
+        plans.invalidate(planId);
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.traveler.service;
+
+import com.example.traveler.dto.LocationDTO;
+import com.example.traveler.dto.PlanResponse;
+import com.example.traveler.repository.PlanVersionRow;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Сильний ETag деталей плану: "<версія плану>-<хеш пар (id, версія) локацій>".
+ * Додавання чи видалення локації не змінює версію плану, тому локації входять у тег.
+ * Однаковий тег рахується і з PlanResponse (кеш), і з рядків findVersionsById.
+ */
+public final class PlanETag {
+
+    private PlanETag() {
+    }
+
+    public static String of(PlanResponse plan) {
+        Map<UUID, Integer> locations = new TreeMap<>();
+        for (LocationDTO location : plan.locations()) {
+            locations.put(location.id(), location.version());
+        }
+        return of(plan.version(), locations);
+    }
+
+    public static String of(List<PlanVersionRow> rows) {
+        Map<UUID, Integer> locations = new TreeMap<>();
+        for (PlanVersionRow row : rows) {
+            if (row.locationId() != null) locations.put(row.locationId(), row.locationVersion());
+        }
+        return of(rows.get(0).planVersion(), locations);
+    }
+
+    private static String of(Integer planVersion, Map<UUID, Integer> sortedLocations) {
+        ByteBuffer buffer = ByteBuffer.allocate(sortedLocations.size() * 20);
+        sortedLocations.forEach((id, version) -> buffer
+                .putLong(id.getMostSignificantBits())
+                .putLong(id.getLeastSignificantBits())
+                .putInt(version == null ? 0 : version));
+        byte[] digest = sha256().digest(buffer.array());
+        return "\"" + planVersion + "-" + HexFormat.of().formatHex(digest, 0, 12) + "\"";
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
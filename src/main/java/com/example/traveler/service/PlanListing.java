@@ -0,0 +1,9 @@
+package com.example.traveler.service;
+
+import com.example.traveler.dto.PlanSummaryResponse;
+import org.springframework.data.domain.Page;
+
+import java.util.Set;
+
+/** Сторінка списку планів і шарди, пропущені в режимі часткових результатів. */
+public record PlanListing(Page<PlanSummaryResponse> page, Set<String> skippedShards) {}
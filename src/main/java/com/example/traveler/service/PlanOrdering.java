@@ -0,0 +1,222 @@
+package com.example.traveler.service;
+
+import com.example.traveler.model.TravelPlan;
+import com.example.traveler.repository.PlanSummaryRow;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.query.criteria.HibernateCriteriaBuilder;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * Порядок сортування планів, однаковий для запиту до шарду і для злиття в пам'яті
+ * (злиття працює з {@link PlanSummaryRow}, умова продовження — по колонках {@link TravelPlan}).
+ * Невідомі властивості відкидаються, а id завжди додається останнім ключем,
+ * щоб порядок був строгим і по ньому можна було продовжувати вибірку (keyset).
+ * Текстові ключі (title, currency) порівнюються як lower(...) у колації "C", тобто побайтово:
+ * порядок Postgres для колації бази залежить від локалі й не відтворюється в Java.
+ */
+public final class PlanOrdering {
+
+    private record SortKey(Function<PlanSummaryRow, Object> extractor,
+                           Function<String, Object> parser,
+                           Comparator<PlanSummaryRow> comparator,
+                           BiFunction<Path<?>, CriteriaBuilder, Expression<?>> column,
+                           UnaryOperator<Object> operand) {}
+
+    // Колація, в якій порівнюються текстові ключі; під неї є індекси (lower(col) COLLATE "C", id)
+    private static final String BYTE_ORDER_COLLATION = "\"C\"";
+
+    private static final Map<String, SortKey> KEYS = Map.of(
+            "title", caseless(PlanSummaryRow::title),
+            "startDate", key(PlanSummaryRow::startDate, LocalDate::parse, Comparator.naturalOrder()),
+            "endDate", key(PlanSummaryRow::endDate, LocalDate::parse, Comparator.naturalOrder()),
+            "budget", key(PlanSummaryRow::budget, BigDecimal::new, Comparator.naturalOrder()),
+            "currency", caseless(PlanSummaryRow::currency),
+            "id", key(PlanSummaryRow::id, UUID::fromString, PlanOrdering::compareUuids),
+            "createdAt", key(PlanSummaryRow::createdAt, OffsetDateTime::parse, Comparator.naturalOrder())
+    );
+
+    private final Sort sort;
+    private final Comparator<PlanSummaryRow> comparator;
+
+    private PlanOrdering(Sort sort, Comparator<PlanSummaryRow> comparator) {
+        this.sort = sort;
+        this.comparator = comparator;
+    }
+
+    public static PlanOrdering of(Sort requested) {
+        List<Sort.Order> orders = new ArrayList<>();
+        Comparator<PlanSummaryRow> comparator = null;
+        boolean hasId = false;
+
+        for (Sort.Order order : requested) {
+            SortKey key = KEYS.get(order.getProperty());
+            if (key == null) continue;
+            Comparator<PlanSummaryRow> current = order.isDescending() ? key.comparator().reversed() : key.comparator();
+            comparator = comparator == null ? current : comparator.thenComparing(current);
+            orders.add(new Sort.Order(order.getDirection(), order.getProperty()));
+            hasId |= order.getProperty().equals("id");
+        }
+
+        if (!hasId) {
+            Comparator<PlanSummaryRow> byId = KEYS.get("id").comparator();
+            comparator = comparator == null ? byId : comparator.thenComparing(byId);
+            orders.add(Sort.Order.asc("id"));
+        }
+        return new PlanOrdering(Sort.by(orders), comparator);
+    }
+
+    public Sort sort() {
+        return sort;
+    }
+
+    public Comparator<PlanSummaryRow> comparator() {
+        return comparator;
+    }
+
+    /** ORDER BY для запиту до шарду — ті самі вирази, що й в умові {@link #after}. */
+    public List<Order> orders(Root<TravelPlan> root, CriteriaBuilder cb) {
+        List<Order> orders = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            Expression<?> column = column(root, cb, order.getProperty());
+            orders.add(order.isAscending() ? cb.asc(column) : cb.desc(column));
+        }
+        return orders;
+    }
+
+    /**
+     * Умова "рядок іде строго після last" у порядку {@link #sort()}.
+     * NULL обробляються так само, як у Postgres: в кінці для ASC і на початку для DESC.
+     */
+    public Specification<TravelPlan> after(PlanSummaryRow last) {
+        return (root, query, cb) -> {
+            if (last == null) return cb.conjunction();
+
+            List<Predicate> alternatives = new ArrayList<>();
+            List<Predicate> equalPrefix = new ArrayList<>();
+            for (Sort.Order order : sort) {
+                Expression<Comparable<Object>> path = column(root, cb, order.getProperty());
+                Comparable<Object> value = operandOf(last, order.getProperty());
+
+                Predicate beyond = beyond(cb, path, value, order.isAscending());
+                if (beyond != null) {
+                    List<Predicate> branch = new ArrayList<>(equalPrefix);
+                    branch.add(beyond);
+                    alternatives.add(cb.and(branch.toArray(Predicate[]::new)));
+                }
+                equalPrefix.add(value == null ? cb.isNull(path) : cb.equal(path, value));
+            }
+            return cb.or(alternatives.toArray(Predicate[]::new));
+        };
+    }
+
+    /** Значення ключів сортування рядка у вигляді рядків — для continuation token. */
+    public List<String> keyOf(PlanSummaryRow plan) {
+        List<String> key = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            Object value = KEYS.get(order.getProperty()).extractor().apply(plan);
+            key.add(value == null ? null : value.toString());
+        }
+        return key;
+    }
+
+    /** Зворотне до {@link #keyOf}: рядок, заповнений лише ключами сортування (для {@link #after}). */
+    public PlanSummaryRow fromKey(List<String> key) {
+        if (key.size() != sort.toList().size()) {
+            throw new IllegalStateException("Invalid cursor: sort key does not match sort order");
+        }
+        Map<String, Object> values = new HashMap<>();
+        int i = 0;
+        for (Sort.Order order : sort) {
+            String value = key.get(i++);
+            values.put(order.getProperty(), value == null ? null : KEYS.get(order.getProperty()).parser().apply(value));
+        }
+        return new PlanSummaryRow((UUID) values.get("id"), (String) values.get("title"),
+                (LocalDate) values.get("startDate"), (LocalDate) values.get("endDate"),
+                (BigDecimal) values.get("budget"), (String) values.get("currency"),
+                false, null, (OffsetDateTime) values.get("createdAt"));
+    }
+
+    @SuppressWarnings("unchecked")
+    static Comparable<Object> valueOf(PlanSummaryRow plan, String property) {
+        return (Comparable<Object>) KEYS.get(property).extractor().apply(plan);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Comparable<Object> operandOf(PlanSummaryRow plan, String property) {
+        return (Comparable<Object>) KEYS.get(property).operand().apply(valueOf(plan, property));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Expression<Comparable<Object>> column(Root<TravelPlan> root, CriteriaBuilder cb, String property) {
+        return (Expression<Comparable<Object>>) KEYS.get(property).column().apply(root.get(property), cb);
+    }
+
+    private static Predicate beyond(CriteriaBuilder cb, Expression<Comparable<Object>> path, Comparable<Object> value, boolean ascending) {
+        if (ascending) {
+            // NULLS LAST: після NULL по цьому ключу нічого немає
+            return value == null ? null : cb.or(cb.greaterThan(path, value), cb.isNull(path));
+        }
+        // NULLS FIRST: після NULL ідуть усі непорожні значення
+        return value == null ? cb.isNotNull(path) : cb.lessThan(path, value);
+    }
+
+    // Postgres порівнює uuid побайтово (беззнаково), UUID.compareTo — як знакові long
+    static int compareUuids(UUID a, UUID b) {
+        int cmp = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+        return cmp != 0 ? cmp : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+    }
+
+    // Те саме, що lower(a) COLLATE "C" < lower(b) COLLATE "C" у Postgres: порядок байтів UTF-8
+    // збігається з порядком кодових точок (String.compareTo порівнює UTF-16 і розходиться на сурогатах)
+    static int compareCaseless(String a, String b) {
+        return compareCodePoints(a.toLowerCase(Locale.ROOT), b.toLowerCase(Locale.ROOT));
+    }
+
+    private static int compareCodePoints(String a, String b) {
+        int i = 0;
+        int j = 0;
+        while (i < a.length() && j < b.length()) {
+            int ca = a.codePointAt(i);
+            int cb = b.codePointAt(j);
+            if (ca != cb) return Integer.compare(ca, cb);
+            i += Character.charCount(ca);
+            j += Character.charCount(cb);
+        }
+        return Boolean.compare(i < a.length(), j < b.length());
+    }
+
+    private static <T> SortKey key(Function<PlanSummaryRow, T> extractor, Function<String, T> parser,
+                                   Comparator<? super T> valueOrder) {
+        return new SortKey(extractor::apply, parser::apply,
+                Comparator.comparing(extractor, Comparator.nullsLast(valueOrder)),
+                (path, cb) -> path, UnaryOperator.identity());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static SortKey caseless(Function<PlanSummaryRow, String> extractor) {
+        return new SortKey(extractor::apply, value -> value,
+                Comparator.comparing(extractor, Comparator.nullsLast(PlanOrdering::compareCaseless)),
+                (path, cb) -> ((HibernateCriteriaBuilder) cb).collate(cb.lower((Expression<String>) path), BYTE_ORDER_COLLATION),
+                value -> value == null ? null : ((String) value).toLowerCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.traveler.service;
+
+import com.example.traveler.config.ShardRouter;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Генерація UUID у заданому віртуальному бакеті (молодші 10 біт ID, див. {@link ShardRouter#BUCKETS}).
+ * Бакет записується в ID напряму, тож ID генерується за один крок,
+ * без перебору UUID.randomUUID() і без конкуренції за спільний SecureRandom.
+ * <p>
+ * {@link #timeOrderedId} — розкладка UUIDv7 (старші 48 біт — мілісекунди Unix-часу): нові ключі
+ * лягають у "хвіст" B-tree індексу первинного ключа замість випадкових сторінок.
+ */
+public final class ShardIdGenerator {
+
+    private static final long VERSION_MASK = 0xF000L;
+    private static final long VERSION_4 = 0x4000L;
+    private static final long VERSION_7 = 0x7000L;
+    private static final long RAND_A_MASK = 0x0FFFL;
+    private static final long VARIANT_MASK = 0xC000000000000000L;
+    private static final long VARIANT_IETF = 0x8000000000000000L;
+    private static final long BUCKET_MASK = ShardRouter.BUCKETS - 1;
+
+    private ShardIdGenerator() {
+    }
+
+    /** Випадковий UUID версії 4 у бакеті bucket. */
+    public static UUID randomId(int bucket) {
+        long bucketBits = bucketBits(bucket);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long msb = (random.nextLong() & ~VERSION_MASK) | VERSION_4;
+        long lsb = (random.nextLong() & ~(VARIANT_MASK | BUCKET_MASK)) | VARIANT_IETF | bucketBits;
+        return new UUID(msb, lsb);
+    }
+
+    /** UUIDv7 у бакеті bucket. */
+    public static UUID timeOrderedId(int bucket) {
+        return timeOrderedId(System.currentTimeMillis(), bucketBits(bucket));
+    }
+
+    /** UUIDv7 у випадковому бакеті (для нових планів, щоб навантаження розподілялось рівномірно). */
+    public static UUID timeOrderedId() {
+        return timeOrderedId(System.currentTimeMillis(), ThreadLocalRandom.current().nextInt(ShardRouter.BUCKETS));
+    }
+
+    static UUID timeOrderedId(long epochMillis, long bucketBits) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long msb = (epochMillis << 16) | VERSION_7 | (random.nextLong() & RAND_A_MASK);
+        long lsb = (random.nextLong() & ~(VARIANT_MASK | BUCKET_MASK)) | VARIANT_IETF | bucketBits;
+        return new UUID(msb, lsb);
+    }
+
+    private static long bucketBits(int bucket) {
+        if (bucket < 0 || bucket >= ShardRouter.BUCKETS) {
+            throw new IllegalArgumentException("Invalid bucket: " + bucket);
+        }
+        return bucket;
+    }
+}
@@ -0,0 +1,234 @@
+package com.example.traveler.service;
+
+import com.example.traveler.config.ShardTaskExecutor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * K-way злиття відсортованих потоків з усіх шардів.
+ * Кожен шард читається порціями (наступна порція — строго після останнього отриманого рядка).
+ * Перша порція — приблизна частка шарду в offset + pageSize плюс запас pageSize, кожна наступна
+ * вдвічі більша (до MAX_BATCH) і не більша, ніж ще може знадобитися сторінці; тож глибока сторінка
+ * коштує кілька запитів на шард, а не (offset + pageSize) / pageSize. Злиття зупиняється, щойно
+ * сторінку заповнено, а незатребувані попередні завантаження скасовуються.
+ * Час, який злиття чекає на порцію шарду, пишеться в traveler.shard.fanout.wait{shard}.
+ */
+@Slf4j
+@Component
+public class ShardMergeEngine {
+
+    @FunctionalInterface
+    public interface ShardFetcher<T> {
+        /**
+         * Повертає до limit рядків шарду у порядку злиття, строго після after
+         * (after == null — з початку).
+         */
+        List<T> fetch(String shardKey, T after, int limit);
+    }
+
+    /**
+     * Сторінка злиття, останній взятий рядок кожного шарду (з нього продовжується
+     * наступна сторінка в keyset-режимі) і шарди, пропущені в режимі часткових результатів.
+     */
+    public record MergeResult<T>(List<T> items, Map<String, T> lastTaken, Set<String> skippedShards) {}
+
+    private static final int MAX_BATCH = 1_000;
+
+    private final ShardTaskExecutor executor;
+    private final MeterRegistry meterRegistry;
+
+    public ShardMergeEngine(ShardTaskExecutor executor, MeterRegistry meterRegistry) {
+        this.executor = executor;
+        this.meterRegistry = meterRegistry;
+    }
+
+    private Timer fanOutWait(String shardKey) {
+        return Timer.builder("traveler.shard.fanout.wait")
+                .description("Time a merge waits for the next batch of a shard")
+                .tag("shard", shardKey)
+                .register(meterRegistry);
+    }
+
+    public <T> List<T> merge(Collection<String> shardKeys, Comparator<T> order, ShardFetcher<T> fetcher,
+                             long offset, int pageSize) {
+        return merge(shardKeys, order, fetcher, Map.of(), offset, pageSize, null).items();
+    }
+
+    /**
+     * partialDeadline == null — будь-яка помилка шарду зриває злиття.
+     * Інакше шарди, що не відповіли до дедлайну, впали або мають відкритий circuit breaker,
+     * пропускаються, а сторінка складається з решти.
+     */
+    public <T> MergeResult<T> merge(Collection<String> shardKeys, Comparator<T> order, ShardFetcher<T> fetcher,
+                                    Map<String, T> startAfter, long offset, int pageSize, Duration partialDeadline) {
+        Map<String, T> lastTaken = new HashMap<>(startAfter);
+        Set<String> skipped = new TreeSet<>();
+        if (pageSize <= 0) return new MergeResult<>(List.of(), lastTaken, skipped);
+
+        long deadline = partialDeadline == null ? 0 : System.nanoTime() + partialDeadline.toNanos();
+        long remaining = offset + pageSize;
+        int firstBatch = (int) Math.min(MAX_BATCH, ceilDiv(remaining, Math.max(1, shardKeys.size())) + pageSize);
+        List<Cursor<T>> cursors = new ArrayList<>(shardKeys.size());
+        try {
+            for (String shardKey : shardKeys) {
+                Cursor<T> cursor = new Cursor<>(shardKey, fetcher, firstBatch, startAfter.get(shardKey), partialDeadline != null, deadline);
+                cursors.add(cursor);
+                cursor.prefetch(remaining);
+            }
+
+            PriorityQueue<Cursor<T>> heap = new PriorityQueue<>(cursors.size(), Comparator.comparing(Cursor::peek, order));
+            for (Cursor<T> cursor : cursors) {
+                if (cursor.advance(remaining)) heap.add(cursor);
+            }
+
+            long toSkip = offset;
+            List<T> page = new ArrayList<>(pageSize);
+            while (page.size() < pageSize && !heap.isEmpty()) {
+                Cursor<T> cursor = heap.poll();
+                T item = cursor.take();
+                lastTaken.put(cursor.shardKey, item);
+                remaining--;
+                if (toSkip > 0) {
+                    toSkip--;
+                } else {
+                    page.add(item);
+                }
+                if (remaining > 0 && cursor.advance(remaining)) heap.add(cursor);
+            }
+            for (Cursor<T> cursor : cursors) {
+                if (cursor.skipped) skipped.add(cursor.shardKey);
+            }
+            return new MergeResult<>(page, lastTaken, skipped);
+        } finally {
+            cursors.forEach(Cursor::cancel);
+        }
+    }
+
+    private static long ceilDiv(long x, long y) {
+        return (x + y - 1) / y;
+    }
+
+    private class Cursor<T> {
+        private final String shardKey;
+        private final ShardFetcher<T> fetcher;
+        private final Timer waitTimer;
+        private int batchSize;
+        private int requested; // розмір порції, що зараз завантажується
+        private final ArrayDeque<T> buffer = new ArrayDeque<>();
+
+        private final boolean partial;
+        private final long deadline;
+
+        private CompletableFuture<List<T>> pending;
+        private T last;
+        private boolean exhausted;
+        private boolean skipped;
+
+        Cursor(String shardKey, ShardFetcher<T> fetcher, int batchSize, T startAfter, boolean partial, long deadline) {
+            this.shardKey = shardKey;
+            this.fetcher = fetcher;
+            this.waitTimer = fanOutWait(shardKey);
+            this.batchSize = batchSize;
+            this.last = startAfter;
+            this.partial = partial;
+            this.deadline = deadline;
+        }
+
+        T peek() {
+            return buffer.peekFirst();
+        }
+
+        T take() {
+            return buffer.pollFirst();
+        }
+
+        void prefetch(long remaining) {
+            if (pending != null || exhausted || skipped) return;
+            T after = last;
+            int limit = (int) Math.max(1, Math.min(batchSize, remaining - buffer.size()));
+            requested = limit;
+            try {
+                pending = executor.submit(shardKey, () -> fetcher.fetch(shardKey, after, limit));
+            } catch (RuntimeException e) {
+                if (!partial) throw e;
+                skip(e);
+            }
+        }
+
+        private void skip(Throwable cause) {
+            log.warn("Skipping shard {} in partial results: {}", shardKey, cause.toString());
+            skipped = true; // вже отримані рядки шарду ще беруть участь у злитті
+            cancel();
+            pending = null;
+        }
+
+        private List<T> await() {
+            long start = System.nanoTime();
+            try {
+                return awaitPending();
+            } finally {
+                waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        private List<T> awaitPending() {
+            if (!partial) return ShardTaskExecutor.join(shardKey, pending);
+            try {
+                return pending.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (ExecutionException e) {
+                skip(e.getCause());
+            } catch (TimeoutException | CancellationException e) {
+                skip(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                skip(e);
+            }
+            return null;
+        }
+
+        void cancel() {
+            if (pending != null) pending.cancel(false);
+        }
+
+        /**
+         * Гарантує наявність наступного елемента в буфері; false — шард вичерпано.
+         * Коли буфер спорожнів наполовину, а сторінці ще потрібно більше, ніж лишилось
+         * у буфері, наступна порція завантажується заздалегідь.
+         */
+        boolean advance(long remaining) {
+            if (buffer.isEmpty()) {
+                prefetch(remaining);
+                if (pending == null) return false;
+                List<T> batch = await();
+                if (batch == null) return false;
+                pending = null;
+                if (batch.size() < requested) exhausted = true;
+                batchSize = Math.min(batchSize * 2, MAX_BATCH);
+                if (!batch.isEmpty()) last = batch.get(batch.size() - 1);
+                buffer.addAll(batch);
+                if (buffer.isEmpty()) return false;
+            }
+            if (buffer.size() <= requested / 2 && remaining > buffer.size()) prefetch(remaining);
+            return !buffer.isEmpty();
+        }
+    }
+}
@@ -1,28 +1,40 @@
 package com.example.traveler.service;
 
 import com.example.traveler.config.ShardContext;
+import com.example.traveler.config.ShardRouter;
+import com.example.traveler.config.ShardTaskExecutor;
 import com.example.traveler.dto.*;
+import com.example.traveler.exception.PreconditionFailedException;
+import com.example.traveler.exception.ShardOverloadedException;
+import com.example.traveler.exception.ShardUnavailableException;
 import com.example.traveler.model.TravelPlan;
+import com.example.traveler.repository.PlanSummaryRow;
+import com.example.traveler.repository.PlanVersionRow;
 import com.example.traveler.repository.TravelPlanRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.persistence.OptimisticLockException;
+import jakarta.persistence.PersistenceException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.Page;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.PageImpl;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -32,153 +44,277 @@ public class TravelPlanService {
 
     private final TravelPlanRepository planRepository;
     private final TransactionTemplate transactionTemplate;
+    private final PlanCountCache planCountCache;
+    private final ShardTaskExecutor shardTaskExecutor;
+    private final ShardMergeEngine mergeEngine;
+    private final ShardRouter shardRouter;
+    private final EntityManager entityManager;
+    private final PlanDetailCache planDetailCache;
 
-    private static final String[] SHARDS = {"0", "1", "2", "3", "4", "5", "6", "7", "8", "9", "a", "b", "c", "d", "e", "f"};
-    private final ExecutorService executorService = Executors.newFixedThreadPool(16);
+    @Value("${traveler.shards.partial-deadline-ms:1000}")
+    private long partialDeadlineMs;
 
-    public Page<PlanSummaryResponse> getAllPlans(Pageable pageable) {
-        long totalElements = getTotalCountFromAllShards();
+    @Value("${traveler.plans.batch-timeout-seconds:30}")
+    private int batchTimeoutSeconds;
 
-        if (totalElements == 0) {
-            return new PageImpl<>(Collections.emptyList(), pageable, 0);
+    private TransactionTemplate readOnlyTransaction;
+
+    @PostConstruct
+    void initReadOnlyTransaction() {
+        readOnlyTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * partial == true: шарди, що не відповіли за traveler.shards.partial-deadline-ms
+     * (або виключені circuit breaker'ом), пропускаються і повертаються у skippedShards.
+     */
+    public PlanListing getAllPlans(Pageable pageable, boolean exactCount, boolean partial) {
+        long totalElements = exactCount || !planCountCache.isInitialized()
+                ? getTotalCountFromAllShards()
+                : planCountCache.total();
+
+        if (totalElements == 0 || pageable.getOffset() >= totalElements) {
+            return new PlanListing(new PageImpl<>(Collections.emptyList(), pageable, totalElements), Set.of());
         }
 
-        int neededSize = (int) pageable.getOffset() + pageable.getPageSize();
-        Pageable internalPageable = PageRequest.of(0, neededSize, pageable.getSort());
+        PlanOrdering ordering = PlanOrdering.of(pageable.getSort());
+        ShardMergeEngine.MergeResult<PlanSummaryRow> result = mergeEngine.merge(
+                shardRouter.shards(),
+                ordering.comparator(),
+                (shard, after, limit) -> fetchSortedFromShard(shard, ordering, after, limit),
+                Map.of(),
+                pageable.getOffset(),
+                pageable.getPageSize(),
+                partial ? Duration.ofMillis(partialDeadlineMs) : null);
 
-        List<TravelPlan> aggregatedResults = getDataFromAllShards(internalPageable);
-        sortInMemory(aggregatedResults, pageable);
+        List<PlanSummaryResponse> pagedContent = result.items().stream()
+                .map(TravelPlanService::toPlanSummaryResponse)
+                .collect(Collectors.toList());
+
+        return new PlanListing(new PageImpl<>(pagedContent, pageable, totalElements), result.skippedShards());
+    }
 
-        int start = (int) pageable.getOffset();
-        int end = Math.min((start + pageable.getPageSize()), aggregatedResults.size());
+    /**
+     * Keyset-режим: кожен шард продовжує строго після свого останнього відданого рядка,
+     * тому вартість сторінки не залежить від глибини прокрутки. Порожній cursor — перша сторінка.
+     */
+    public PlanScrollResponse scrollPlans(String cursor, Pageable pageable) {
+        PlanCursor position = cursor.isEmpty() ? PlanCursor.start(pageable.getSort()) : PlanCursor.decode(cursor);
+        PlanOrdering ordering = position.ordering();
 
-        List<PlanSummaryResponse> pagedContent;
-        if (start > aggregatedResults.size()) {
-            pagedContent = Collections.emptyList();
-        } else {
-            pagedContent = aggregatedResults.subList(start, end).stream()
-                    .map(this::toPlanSummaryResponse)
-                    .collect(Collectors.toList());
-        }
+        ShardMergeEngine.MergeResult<PlanSummaryRow> result = mergeEngine.merge(
+                shardRouter.shards(),
+                ordering.comparator(),
+                (shard, after, limit) -> fetchSortedFromShard(shard, ordering, after, limit),
+                position.positions(),
+                0,
+                pageable.getPageSize(),
+                null);
 
-        return new PageImpl<>(pagedContent, pageable, totalElements);
+        List<PlanSummaryResponse> content = result.items().stream()
+                .map(TravelPlanService::toPlanSummaryResponse)
+                .collect(Collectors.toList());
+        String nextCursor = content.size() < pageable.getPageSize()
+                ? null
+                : PlanCursor.encode(ordering, result.lastTaken());
+
+        return new PlanScrollResponse(content, nextCursor);
     }
 
+    // Точний підрахунок по всіх шардах; заодно оновлює кеш лічильників. Лише з primary:
+    // відстала репліка дала б старі числа, і reset затер би свіжі increment
     private long getTotalCountFromAllShards() {
-        List<CompletableFuture<Long>> futures = new ArrayList<>();
-        for (String shard : SHARDS) {
-            CompletableFuture<Long> future = CompletableFuture.supplyAsync(() -> {
-                ShardContext.setShard(shard);
-                try {
-                    return planRepository.count();
-                } finally {
-                    ShardContext.clear();
-                }
-            }, executorService);
-            futures.add(future);
-        }
-        return futures.stream().map(CompletableFuture::join).reduce(0L, Long::sum);
-    }
-
-    private List<TravelPlan> getDataFromAllShards(Pageable pageable) {
-        List<CompletableFuture<List<TravelPlan>>> futures = new ArrayList<>();
-        for (String shard : SHARDS) {
-            CompletableFuture<List<TravelPlan>> future = CompletableFuture.supplyAsync(() -> {
-                ShardContext.setShard(shard);
-                try {
-                    return planRepository.findAll(pageable).getContent();
-                } finally {
-                    ShardContext.clear();
-                }
-            }, executorService);
-            futures.add(future);
+        boolean pinned = ShardContext.isPinnedToPrimary();
+        ShardContext.pinToPrimary();
+        try {
+            Map<String, Long> counts = shardTaskExecutor.invokeAll(shardRouter.shards(), shard -> planRepository.count());
+            planCountCache.reset(counts);
+            return counts.values().stream().mapToLong(Long::longValue).sum();
+        } finally {
+            if (!pinned) ShardContext.unpin();
         }
-        return futures.stream()
-                .map(CompletableFuture::join)
-                .flatMap(List::stream)
-                .collect(Collectors.toList());
     }
 
-    private void sortInMemory(List<TravelPlan> plans, Pageable pageable) {
-        if (pageable.getSort().isUnsorted()) return;
-
-        Comparator<TravelPlan> comparator = null;
-        for (org.springframework.data.domain.Sort.Order order : pageable.getSort()) {
-            Comparator<TravelPlan> currentComparator = getComparatorForProperty(order.getProperty());
-            if (currentComparator == null) continue;
-            if (order.isDescending()) currentComparator = currentComparator.reversed();
-            if (comparator == null) comparator = currentComparator;
-            else comparator = comparator.thenComparing(currentComparator);
-        }
-        if (comparator != null) plans.sort(comparator);
-    }
-
-    private Comparator<TravelPlan> getComparatorForProperty(String property) {
-        switch (property) {
-            case "title": return Comparator.comparing(TravelPlan::getTitle, Comparator.nullsLast(String::compareToIgnoreCase));
-            case "startDate": return Comparator.comparing(TravelPlan::getStartDate, Comparator.nullsLast(Comparator.naturalOrder()));
-            case "endDate": return Comparator.comparing(TravelPlan::getEndDate, Comparator.nullsLast(Comparator.naturalOrder()));
-            case "budget": return Comparator.comparing(TravelPlan::getBudget, Comparator.nullsLast(Comparator.naturalOrder()));
-            case "currency": return Comparator.comparing(TravelPlan::getCurrency, Comparator.nullsLast(String::compareToIgnoreCase));
-            case "id": return Comparator.comparing(TravelPlan::getId, Comparator.nullsLast(Comparator.naturalOrder()));
-            case "createdAt": return Comparator.comparing(TravelPlan::getCreatedAt, Comparator.nullsLast(Comparator.naturalOrder()));
-            default: return null;
+    @Scheduled(fixedDelayString = "${traveler.plan-count.reconcile-interval-ms:60000}")
+    public void reconcilePlanCounts() {
+        try {
+            long total = getTotalCountFromAllShards();
+            log.debug("Plan counts reconciled: {} plans", total);
+        } catch (Exception e) {
+            log.warn("Failed to reconcile plan counts: {}", e.getMessage());
         }
     }
 
+    // Наступна відсортована порція одного шарду: WHERE (ключі сортування, id) > last LIMIT n.
+    // Вибираються лише колонки списку (PlanSummaryRow), без description і без керованих сутностей.
+    // Виконується в ShardTaskExecutor, який уже встановив ShardContext.
+    private List<PlanSummaryRow> fetchSortedFromShard(String shard, PlanOrdering ordering, PlanSummaryRow after, int limit) {
+        return planRepository.findSummaries(ordering.after(after), ordering::orders, limit);
+    }
+
     public PlanResponse getPlanById(UUID id) {
-        String shardKey = getShardKey(id);
+        return planDetailCache.get(id, fromReplica -> loadPlan(id, fromReplica));
+    }
+
+    /**
+     * ETag деталей плану без їх завантаження: з кешу або з запиту лише по версіях
+     * (план і id/version його локацій).
+     */
+    public String getPlanETag(UUID id) {
+        PlanResponse cached = planDetailCache.getIfPresent(id);
+        if (cached != null) return PlanETag.of(cached);
+
+        String shardKey = shardRouter.shardFor(id);
+        List<PlanVersionRow> rows = shardTaskExecutor.guard(shardKey, () -> ShardContext.callInShard(shardKey,
+                planDetailCache.canReadFromReplica(id),
+                () -> readOnlyTransaction.execute(status -> planRepository.findVersionsById(id))));
+        if (rows.isEmpty()) throw new EntityNotFoundException("Plan not found with id: " + id);
+        return PlanETag.of(rows);
+    }
+
+    // Один запит з JOIN FETCH у read-only транзакції (FlushMode.MANUAL, без dirty checking)
+    private PlanResponse loadPlan(UUID id, boolean fromReplica) {
+        String shardKey = shardRouter.shardFor(id);
+        return shardTaskExecutor.guard(shardKey, () -> ShardContext.callInShard(shardKey, fromReplica,
+                () -> readOnlyTransaction.execute(status -> {
+                    TravelPlan plan = planRepository.findWithLocationsById(id)
+                            .orElseThrow(() -> new EntityNotFoundException("Plan not found with id: " + id));
+                    return toPlanResponse(plan);
+                })));
+    }
+
+    public PlanResponse createPlan(CreatePlanRequest request) {
+        validateDates(request);
+        UUID id = ShardIdGenerator.timeOrderedId();
+        String shardKey = shardRouter.shardFor(id);
         ShardContext.setShard(shardKey);
         try {
-            return transactionTemplate.execute(status -> {
-                TravelPlan plan = planRepository.findById(id)
-                        .orElseThrow(() -> new EntityNotFoundException("Plan not found with id: " + id));
-                return toPlanResponse(plan);
-            });
+            PlanResponse response = shardTaskExecutor.guard(shardKey, () -> transactionTemplate.execute(status -> {
+                TravelPlan savedPlan = planRepository.save(newPlan(id, request));
+                return toPlanResponse(savedPlan);
+            }));
+            planCountCache.increment(shardKey);
+            return response;
         } finally {
             ShardContext.clear();
         }
     }
 
-    public PlanResponse createPlan(CreatePlanRequest request) {
+    /**
+     * Масове створення планів: ID генеруються заздалегідь, запити групуються за шардом,
+     * і кожен шард вставляє свою групу однією батчевою транзакцією — шарди паралельно.
+     * Помилка шарду позначає FAILED лише елементи цього шарду.
+     */
+    public List<BatchItemResult<PlanResponse>> createPlans(List<CreatePlanRequest> requests) {
+        List<BatchItemResult<PlanResponse>> results = new ArrayList<>(Collections.nCopies(requests.size(), null));
+        Map<String, List<Integer>> indicesByShard = new LinkedHashMap<>();
+        UUID[] ids = new UUID[requests.size()];
+
+        for (int i = 0; i < requests.size(); i++) {
+            try {
+                validateDates(requests.get(i));
+            } catch (IllegalStateException e) {
+                results.set(i, BatchItemResult.failed(i, e.getMessage()));
+                continue;
+            }
+            ids[i] = ShardIdGenerator.timeOrderedId();
+            indicesByShard.computeIfAbsent(shardRouter.shardFor(ids[i]), k -> new ArrayList<>()).add(i);
+        }
+
+        TransactionTemplate batchTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        batchTransaction.setTimeout(batchTimeoutSeconds);
+
+        Map<String, CompletableFuture<List<PlanResponse>>> futures = new LinkedHashMap<>();
+        indicesByShard.forEach((shardKey, indices) -> {
+            try {
+                futures.put(shardKey, shardTaskExecutor.submitWrite(shardKey, () -> batchTransaction.execute(status -> {
+                    List<TravelPlan> plans = new ArrayList<>(indices.size());
+                    for (int index : indices) {
+                        TravelPlan plan = newPlan(ids[index], requests.get(index));
+                        // ID заданий вручну: persist замість save, щоб не робити SELECT на кожен рядок
+                        entityManager.persist(plan);
+                        plans.add(plan);
+                    }
+                    try {
+                        entityManager.flush();
+                    } catch (PersistenceException e) {
+                        // Поза репозиторієм Spring не транслює винятки Hibernate — робимо це явно
+                        throw PersistenceErrors.translate(e);
+                    }
+                    return plans.stream().map(TravelPlanService::toPlanResponse).collect(Collectors.toList());
+                })));
+            } catch (RuntimeException e) {
+                futures.put(shardKey, CompletableFuture.failedFuture(e));
+            }
+        });
+
+        futures.forEach((shardKey, future) -> {
+            List<Integer> indices = indicesByShard.get(shardKey);
+            try {
+                List<PlanResponse> created = ShardTaskExecutor.join(shardKey, future);
+                for (int i = 0; i < indices.size(); i++) {
+                    results.set(indices.get(i), BatchItemResult.created(indices.get(i), created.get(i)));
+                    planCountCache.increment(shardKey);
+                }
+            } catch (RuntimeException e) {
+                log.warn("Batch insert into shard {} failed ({} plans): {}", shardKey, indices.size(), e.toString());
+                String error = batchError(shardKey, e);
+                indices.forEach(index -> results.set(index, BatchItemResult.failed(index, error)));
+            }
+        });
+        return results;
+    }
+
+    private static String batchError(String shardKey, RuntimeException e) {
+        if (e instanceof ShardOverloadedException || e instanceof ShardUnavailableException) return e.getMessage();
+        if (e instanceof DataIntegrityViolationException) return "Data integrity violation";
+        return "Insert into shard " + shardKey + " failed";
+    }
+
+    private static void validateDates(CreatePlanRequest request) {
         if (request.endDate() != null && request.startDate() != null && request.endDate().isBefore(request.startDate())) {
             throw new IllegalStateException("End date cannot be before start date");
         }
-        UUID id = UUID.randomUUID();
-        String shardKey = getShardKey(id);
-        ShardContext.setShard(shardKey);
-        try {
-            return transactionTemplate.execute(status -> {
-                TravelPlan plan = new TravelPlan();
-                plan.setId(id);
-                plan.setTitle(request.title());
-                plan.setDescription(request.description());
-                plan.setStartDate(request.startDate());
-                plan.setEndDate(request.endDate());
-                plan.setBudget(request.budget());
-                if (request.currency() != null) plan.setCurrency(request.currency());
-                plan.setPublic(request.isPublic()); // Тепер це працюватиме коректно
-                TravelPlan savedPlan = planRepository.save(plan);
-                return toPlanResponse(savedPlan);
-            });
-        } finally {
-            ShardContext.clear();
-        }
     }
 
-    public PlanResponse updatePlan(UUID id, UpdatePlanRequest request) {
+    private static TravelPlan newPlan(UUID id, CreatePlanRequest request) {
+        TravelPlan plan = new TravelPlan();
+        plan.setId(id);
+        plan.setTitle(request.title());
+        plan.setDescription(request.description());
+        plan.setStartDate(request.startDate());
+        plan.setEndDate(request.endDate());
+        plan.setBudget(request.budget());
+        if (request.currency() != null) plan.setCurrency(request.currency());
+        plan.setPublic(request.isPublic()); // Тепер це працюватиме коректно
+        return plan;
+    }
+
+    /**
+     * ifMatch — значення заголовка If-Match (null, якщо його немає); замінює або доповнює
+     * version у тілі запиту. Хоча б одне з двох обов'язкове.
+     */
+    public PlanResponse updatePlan(UUID id, UpdatePlanRequest request, String ifMatch) {
+        if (request.version() == null && ifMatch == null) {
+            throw new IllegalStateException("Either version or If-Match header is required");
+        }
         if (request.endDate() != null && request.startDate() != null && request.endDate().isBefore(request.startDate())) {
             throw new IllegalStateException("End date cannot be before start date");
         }
-        String shardKey = getShardKey(id);
+        String shardKey = shardRouter.shardFor(id);
         ShardContext.setShard(shardKey);
         try {
-            return transactionTemplate.execute(status -> {
+            PlanResponse response = shardTaskExecutor.guard(shardKey, () -> transactionTemplate.execute(status -> {
                 TravelPlan plan = planRepository.findById(id)
                         .orElseThrow(() -> new EntityNotFoundException("Plan not found with id: " + id));
-                if (!plan.getVersion().equals(request.version())) {
+                if (ifMatch != null && !matchesETag(ifMatch, PlanETag.of(planRepository.findVersionsById(id)))) {
+                    throw new PreconditionFailedException("Precondition failed: Plan (id: " + id + ") was modified. Please refresh.");
+                }
+                if (request.version() != null && !plan.getVersion().equals(request.version())) {
                     throw new OptimisticLockException("Conflict: Plan (id: " + id + ") was updated by another user. Please refresh.");
                 }
+                // Без version у тілі втрачене оновлення між перевіркою If-Match і flush ловить @Version
                 plan.setTitle(request.title());
                 plan.setDescription(request.description());
                 plan.setStartDate(request.startDate());
@@ -188,38 +324,47 @@ public class TravelPlanService {
                 plan.setPublic(request.isPublic()); // Додано оновлення статусу Public/Private
                 TravelPlan updatedPlan = planRepository.saveAndFlush(plan);
                 return toPlanResponse(updatedPlan);
-            });
+            }));
+            planDetailCache.updated(response);
+            return response;
         } finally {
             ShardContext.clear();
         }
     }
 
+    // If-Match: "*" або список тегів через кому; слабкі теги (W/) при If-Match не збігаються
+    private static boolean matchesETag(String ifMatch, String current) {
+        for (String tag : ifMatch.split(",")) {
+            String trimmed = tag.trim();
+            if (trimmed.equals("*") || trimmed.equals(current)) return true;
+        }
+        return false;
+    }
+
     public void deletePlan(UUID id) {
-        String shardKey = getShardKey(id);
+        String shardKey = shardRouter.shardFor(id);
         ShardContext.setShard(shardKey);
         try {
-            transactionTemplate.execute(status -> {
+            shardTaskExecutor.guard(shardKey, () -> transactionTemplate.execute(status -> {
                 if (!planRepository.existsById(id)) {
                     throw new EntityNotFoundException("Plan not found with id: " + id);
                 }
                 planRepository.deleteById(id);
                 return null;
-            });
+            }));
+            planCountCache.decrement(shardKey);
+            planDetailCache.invalidate(id);
         } finally {
             ShardContext.clear();
         }
     }
 
-    private String getShardKey(UUID id) {
-        String uuidStr = id.toString();
-        return String.valueOf(uuidStr.charAt(uuidStr.length() - 1));
-    }
-
-    private PlanResponse toPlanResponse(TravelPlan plan) {
+    // Пакетна видимість — для JMH-бенчмарку мапінгу (src/jmh)
+    static PlanResponse toPlanResponse(TravelPlan plan) {
         List<LocationDTO> locationDtos = plan.getLocations().stream()
                 .map(loc -> new LocationDTO(
                         loc.getId(),
-                        loc.getTravelPlan().getId(),
+                        plan.getId(),
                         loc.getName(),
                         loc.getAddress(),
                         loc.getLatitude(),
@@ -239,16 +384,16 @@ public class TravelPlanService {
     }
 
     // Оновлений метод з новими полями
-    private PlanSummaryResponse toPlanSummaryResponse(TravelPlan plan) {
+    static PlanSummaryResponse toPlanSummaryResponse(PlanSummaryRow plan) {
         return new PlanSummaryResponse(
-                plan.getId(),
-                plan.getTitle(),
-                plan.getStartDate(),
-                plan.getEndDate(),
-                plan.getBudget(),
-                plan.getCurrency(),
+                plan.id(),
+                plan.title(),
+                plan.startDate(),
+                plan.endDate(),
+                plan.budget(),
+                plan.currency(),
                 plan.isPublic(),
-                plan.getVersion()
+                plan.version()
         );
     }
 }
\ No newline at end of file
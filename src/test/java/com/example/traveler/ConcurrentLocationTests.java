@@ -22,6 +22,7 @@ import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -183,5 +184,43 @@ public class ConcurrentLocationTests {
 
         log.info("Тест успішно пройдено! 'Race condition' не відбулося (або було вирішене).");
     }
-}
 
+    @Test
+    void testManyConcurrentAppendsGetSequentialOrders() throws InterruptedException {
+        int threadCount = 16;
+        int appendsPerThread = 5;
+        CountDownLatch startLatch = new CountDownLatch(1);
+        CountDownLatch doneLatch = new CountDownLatch(threadCount);
+        var executor = Executors.newFixedThreadPool(threadCount);
+
+        for (int t = 0; t < threadCount; t++) {
+            int thread = t;
+            executor.submit(() -> {
+                try {
+                    startLatch.await();
+                    for (int i = 0; i < appendsPerThread; i++) {
+                        locationService.addLocationToPlan(planId, new CreateLocationRequest(
+                                "City " + thread + "-" + i, null, null, null, null, null, null, null));
+                    }
+                } catch (Exception e) {
+                    log.error("ПОТІК {}: Помилка!", thread, e);
+                } finally {
+                    doneLatch.countDown();
+                }
+            });
+        }
+
+        startLatch.countDown();
+        assertTrue(doneLatch.await(30, TimeUnit.SECONDS), "Потоки не завершились вчасно");
+        executor.shutdown();
+
+        List<Integer> finalOrders = locationRepository.findAllByTravelPlanIdOrderByVisitOrderAsc(planId).stream()
+                .map(Location::getVisitOrder)
+                .collect(Collectors.toList());
+
+        // 2 початкові + 80 нових, без дублікатів і пропусків
+        int expectedSize = 2 + threadCount * appendsPerThread;
+        assertThat(finalOrders).containsExactlyElementsOf(
+                IntStream.rangeClosed(1, expectedSize).boxed().collect(Collectors.toList()));
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.traveler;
+
+import com.example.traveler.config.BucketShardRouter;
+import com.example.traveler.config.ShardTaskExecutor;
+import com.example.traveler.dto.CreateLocationRequest;
+import com.example.traveler.dto.LocationDTO;
+import com.example.traveler.model.TravelPlan;
+import com.example.traveler.repository.LocationRepository;
+import com.example.traveler.repository.TravelPlanRepository;
+import com.example.traveler.service.LocationService;
+import com.example.traveler.service.PlanDetailCache;
+import com.example.traveler.service.ShardIdGenerator;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityNotFoundException;
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Додавання локацій при конфліктах вставки. flush() через EntityManager кидає неперекладений
+ * Hibernate ConstraintViolationException — так само, як це відбувається з Postgres.
+ */
+public class LocationAppendTests {
+
+    private final UUID planId = ShardIdGenerator.timeOrderedId(0x005);
+    private final EntityManager entityManager = mock(EntityManager.class);
+    private final TravelPlanRepository travelPlanRepository = mock(TravelPlanRepository.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+    private final ShardTaskExecutor executor = new ShardTaskExecutor(4, 2, 64,
+            Duration.ofSeconds(1), Duration.ofSeconds(5), TransactionOperations.withoutTransaction());
+
+    private final LocationService service = new LocationService(mock(LocationRepository.class), entityManager,
+            transactionTemplate, new BucketShardRouter(null), travelPlanRepository, mock(PlanDetailCache.class), executor);
+
+    @BeforeEach
+    void setUp() {
+        TravelPlan plan = new TravelPlan();
+        plan.setId(planId);
+        when(entityManager.getReference(TravelPlan.class, planId)).thenReturn(plan);
+        when(transactionTemplate.execute(any())).then(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void visitOrderCollisionReservesNewOrdersAndRetries() {
+        when(travelPlanRepository.allocateVisitOrders(eq(planId), anyInt())).thenReturn(Optional.of(3), Optional.of(4));
+        doThrow(violation("23505", "uk_locations_plan_visit_order")).doNothing().when(entityManager).flush();
+
+        LocationDTO created = service.addLocationToPlan(planId, request("Louvre"));
+
+        assertThat(created.visitOrder()).isEqualTo(4);
+        verify(travelPlanRepository, times(2)).allocateVisitOrders(planId, 1);
+    }
+
+    @Test
+    void persistentCollisionSurfacesAsDataIntegrityViolation() {
+        when(travelPlanRepository.allocateVisitOrders(eq(planId), anyInt())).thenReturn(Optional.of(1));
+        doThrow(violation("23505", "uk_locations_plan_visit_order")).when(entityManager).flush();
+
+        assertThatThrownBy(() -> service.addLocationToPlan(planId, request("Louvre")))
+                .isInstanceOf(DataIntegrityViolationException.class);
+        verify(travelPlanRepository, times(3)).allocateVisitOrders(planId, 1);
+    }
+
+    @Test
+    void planDeletedBeforeInsertIsNotFound() {
+        when(travelPlanRepository.allocateVisitOrders(eq(planId), anyInt())).thenReturn(Optional.of(1));
+        doThrow(violation("23503", "locations_travel_plan_id_fkey")).when(entityManager).flush();
+
+        assertThatThrownBy(() -> service.addLocationToPlan(planId, request("Louvre")))
+                .isInstanceOf(EntityNotFoundException.class);
+        verify(travelPlanRepository, times(1)).allocateVisitOrders(planId, 1);
+    }
+
+    private static ConstraintViolationException violation(String sqlState, String constraint) {
+        return new ConstraintViolationException("could not execute batch",
+                new SQLException("violates constraint \"" + constraint + "\"", sqlState), constraint);
+    }
+
+    private static CreateLocationRequest request(String name) {
+        return new CreateLocationRequest(name, null, null, null, null, null, null, null);
+    }
+}
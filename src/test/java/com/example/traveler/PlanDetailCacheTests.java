@@ -0,0 +1,47 @@
+package com.example.traveler;
+
+import com.example.traveler.dto.PlanResponse;
+import com.example.traveler.service.PlanDetailCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PlanDetailCacheTests {
+
+    private final PlanDetailCache cache = new PlanDetailCache(100, 60_000, 60_000, new SimpleMeterRegistry());
+
+    @Test
+    void olderVersionDoesNotReplaceNewerOne() {
+        UUID id = UUID.randomUUID();
+        cache.get(id, fromReplica -> plan(id, 3));
+
+        cache.updated(plan(id, 2));
+        assertThat(cache.get(id, fromReplica -> plan(id, 0)).version()).isEqualTo(3);
+
+        cache.updated(plan(id, 4));
+        assertThat(cache.get(id, fromReplica -> plan(id, 0)).version()).isEqualTo(4);
+    }
+
+    @Test
+    void reloadAfterInvalidationReadsFromPrimary() {
+        UUID id = UUID.randomUUID();
+        List<Boolean> loads = new ArrayList<>();
+
+        cache.get(id, fromReplica -> { loads.add(fromReplica); return plan(id, 0); });
+        cache.get(id, fromReplica -> { loads.add(fromReplica); return plan(id, 0); });
+        cache.invalidate(id);
+        cache.get(id, fromReplica -> { loads.add(fromReplica); return plan(id, 1); });
+
+        assertThat(loads).containsExactly(true, false);
+    }
+
+    private static PlanResponse plan(UUID id, int version) {
+        return new PlanResponse(id, "Trip", null, null, null, BigDecimal.ZERO, "USD", version, false, List.of());
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.traveler;
+
+import com.example.traveler.dto.LocationDTO;
+import com.example.traveler.dto.PlanResponse;
+import com.example.traveler.repository.PlanVersionRow;
+import com.example.traveler.service.PlanETag;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PlanETagTests {
+
+    private final UUID planId = UUID.randomUUID();
+    private final UUID first = UUID.randomUUID();
+    private final UUID second = UUID.randomUUID();
+
+    @Test
+    void responseAndVersionRowsGiveSameTag() {
+        PlanResponse plan = plan(2, location(first, 0), location(second, 3));
+        // Порядок рядків з БД не впливає на тег
+        List<PlanVersionRow> rows = List.of(new PlanVersionRow(2, second, 3), new PlanVersionRow(2, first, 0));
+
+        assertThat(PlanETag.of(plan)).isEqualTo(PlanETag.of(rows)).startsWith("\"2-").endsWith("\"");
+        assertThat(PlanETag.of(plan(5))).isEqualTo(PlanETag.of(List.of(new PlanVersionRow(5, null, null))));
+    }
+
+    @Test
+    void locationChangesChangeTagWithoutPlanVersion() {
+        String base = PlanETag.of(plan(1, location(first, 0)));
+
+        assertThat(PlanETag.of(plan(1, location(first, 1)))).isNotEqualTo(base);
+        assertThat(PlanETag.of(plan(1, location(first, 0), location(second, 0)))).isNotEqualTo(base);
+        assertThat(PlanETag.of(plan(1))).isNotEqualTo(base);
+    }
+
+    private PlanResponse plan(int version, LocationDTO... locations) {
+        return new PlanResponse(planId, "Trip", null, null, null, BigDecimal.ZERO, "USD", version, false, List.of(locations));
+    }
+
+    private LocationDTO location(UUID id, int version) {
+        return new LocationDTO(id, planId, "Place", null, null, null, 1, null, null, null, null, version);
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.traveler;
+
+import com.example.traveler.service.ShardIdGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ShardIdGeneratorTests {
+
+    @Test
+    void randomIdLandsInRequestedBucketAndIsValidV4() {
+        Set<UUID> seen = new HashSet<>();
+        for (int bucket = 0; bucket < 1024; bucket += 7) {
+            for (int i = 0; i < 100; i++) {
+                UUID id = ShardIdGenerator.randomId(bucket);
+                String text = id.toString();
+                assertThat(id.getLeastSignificantBits() & 0x3FF).isEqualTo(bucket);
+                // Молодші 4 біти бакета — останній hex-символ, за яким маршрутизуються старі ID
+                assertThat(text).endsWith(Integer.toHexString(bucket & 0xF));
+                assertThat(id.version()).isEqualTo(4);
+                assertThat(id.variant()).isEqualTo(2);
+                // Рядкове представлення розбирається назад у той самий UUID
+                assertThat(UUID.fromString(text)).isEqualTo(id);
+                seen.add(id);
+            }
+        }
+        assertThat(seen).hasSize(147 * 100);
+    }
+
+    @Test
+    void rejectsUnknownBucket() {
+        assertThatThrownBy(() -> ShardIdGenerator.randomId(-1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ShardIdGenerator.randomId(1024)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ShardIdGenerator.timeOrderedId(4096)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void timeOrderedIdsSortByCreationTimeAndKeepBucket() throws InterruptedException {
+        UUID first = ShardIdGenerator.timeOrderedId(0x107);
+        Thread.sleep(2);
+        UUID second = ShardIdGenerator.timeOrderedId(0x3);
+
+        assertThat(first.version()).isEqualTo(7);
+        assertThat(first.variant()).isEqualTo(2);
+        assertThat(first.getLeastSignificantBits() & 0x3FF).isEqualTo(0x107);
+        assertThat(first.toString()).endsWith("7");
+        assertThat(second.toString()).endsWith("3");
+        // Postgres порівнює uuid побайтово — як рядки в нижньому регістрі
+        assertThat(first.toString()).isLessThan(second.toString());
+        assertThat(first.getMostSignificantBits() >>> 16).isLessThanOrEqualTo(System.currentTimeMillis());
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.traveler;
+
+import com.example.traveler.config.ShardTaskExecutor;
+import com.example.traveler.repository.PlanSummaryRow;
+import com.example.traveler.service.PlanOrdering;
+import com.example.traveler.service.ShardMergeEngine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ShardMergeEngineTests {
+
+    private final ShardTaskExecutor executor = new ShardTaskExecutor(4, 2, 64,
+            Duration.ofSeconds(1), Duration.ofSeconds(5), TransactionOperations.withoutTransaction());
+    private final ShardMergeEngine engine = new ShardMergeEngine(executor, new SimpleMeterRegistry());
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void mergedPagesMatchGlobalSortOrder() {
+        // 4 "шарди" з числами 0..399, розкиданими по остачі від ділення
+        Map<String, List<Integer>> shards = new TreeMap<>();
+        for (int i = 0; i < 400; i++) {
+            shards.computeIfAbsent("s" + (i * 7 % 4), k -> new ArrayList<>()).add(i);
+        }
+        List<Integer> all = IntStream.range(0, 400).boxed().collect(Collectors.toList());
+
+        Map<String, AtomicInteger> rowsRead = new ConcurrentHashMap<>();
+        Map<String, AtomicInteger> fetches = new ConcurrentHashMap<>();
+        ShardMergeEngine.ShardFetcher<Integer> fetcher = (shard, after, limit) -> {
+            List<Integer> batch = shards.get(shard).stream()
+                    .filter(v -> after == null || v > after)
+                    .limit(limit)
+                    .collect(Collectors.toList());
+            rowsRead.computeIfAbsent(shard, k -> new AtomicInteger()).addAndGet(batch.size());
+            fetches.computeIfAbsent(shard, k -> new AtomicInteger()).incrementAndGet();
+            return batch;
+        };
+
+        for (int offset = 0; offset < 420; offset += 20) {
+            List<Integer> page = engine.merge(shards.keySet(), Comparator.naturalOrder(), fetcher, offset, 20);
+            List<Integer> expected = all.subList(Math.min(offset, all.size()), Math.min(offset + 20, all.size()));
+            assertThat(page).isEqualTo(expected);
+        }
+
+        // Глибока сторінка: кілька запитів на шард (а не 210 / 10), і кожен шард читає
+        // не більше, ніж сторінці може знадобитися
+        rowsRead.clear();
+        fetches.clear();
+        engine.merge(shards.keySet(), Comparator.naturalOrder(), fetcher, 200, 10);
+        fetches.values().forEach(count -> assertThat(count.get()).isLessThanOrEqualTo(2));
+        rowsRead.values().forEach(count -> assertThat(count.get()).isLessThanOrEqualTo(210));
+        assertThat(rowsRead.values().stream().mapToInt(AtomicInteger::get).sum()).isLessThanOrEqualTo(2 * 210);
+    }
+
+    @Test
+    void keysetContinuationWalksAllRowsExactlyOnce() {
+        Map<String, List<Integer>> shards = Map.of(
+                "a", List.of(1, 4, 5, 9, 12),
+                "b", List.of(2, 3, 10),
+                "c", List.of(6, 7, 8, 11, 13, 14));
+        ShardMergeEngine.ShardFetcher<Integer> fetcher = (shard, after, limit) -> shards.get(shard).stream()
+                .filter(v -> after == null || v > after)
+                .limit(limit)
+                .collect(Collectors.toList());
+
+        List<Integer> seen = new ArrayList<>();
+        Map<String, Integer> position = Map.of();
+        ShardMergeEngine.MergeResult<Integer> result;
+        do {
+            result = engine.merge(shards.keySet(), Comparator.naturalOrder(), fetcher, position, 0, 4, null);
+            seen.addAll(result.items());
+            position = result.lastTaken();
+        } while (result.items().size() == 4);
+
+        assertThat(seen).isEqualTo(IntStream.rangeClosed(1, 14).boxed().collect(Collectors.toList()));
+    }
+
+    @Test
+    void partialModeSkipsSlowShardAfterDeadline() {
+        Map<String, List<Integer>> shards = Map.of(
+                "fast", List.of(1, 3, 5),
+                "slow", List.of(2, 4, 6));
+        ShardMergeEngine.ShardFetcher<Integer> fetcher = (shard, after, limit) -> {
+            if (shard.equals("slow")) {
+                try {
+                    Thread.sleep(2_000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return shards.get(shard).stream()
+                    .filter(v -> after == null || v > after)
+                    .limit(limit)
+                    .collect(Collectors.toList());
+        };
+
+        ShardMergeEngine.MergeResult<Integer> result = engine.merge(shards.keySet(), Comparator.naturalOrder(),
+                fetcher, Map.of(), 0, 10, Duration.ofMillis(200));
+
+        assertThat(result.items()).containsExactly(1, 3, 5);
+        assertThat(result.skippedShards()).containsExactly("slow");
+    }
+
+    @Test
+    void titlesMergeInByteOrderOfLowercasedValues() {
+        // Порядок, який дає ORDER BY lower(title) COLLATE "C", id: регістр ігнорується, літери з
+        // діакритикою йдуть після ASCII, а символи поза BMP — після решти (порядок байтів UTF-8)
+        List<String> expected = List.of("apple", "Apple", "Banana", "zebra", "Zulu",
+                "Ábaco", "éclair", "\uFF3Aoo", "\uD83D\uDE00 trip");
+        List<PlanSummaryRow> rows = new ArrayList<>();
+        for (int i = 0; i < expected.size(); i++) {
+            rows.add(new PlanSummaryRow(new UUID(0, i + 1), expected.get(i), null, null, null, null, false, 0, null));
+        }
+
+        PlanOrdering ordering = PlanOrdering.of(Sort.by("title"));
+        Comparator<PlanSummaryRow> comparator = ordering.comparator();
+        // сусідні рядки лежать на різних шардах, кожен шард віддає їх у своєму (тому самому) порядку
+        Map<String, List<PlanSummaryRow>> shards = new TreeMap<>();
+        for (int i = rows.size() - 1; i >= 0; i--) {
+            shards.computeIfAbsent("s" + (i % 3), k -> new ArrayList<>()).add(rows.get(i));
+        }
+        shards.values().forEach(list -> list.sort(comparator));
+        ShardMergeEngine.ShardFetcher<PlanSummaryRow> fetcher = (shard, after, limit) -> shards.get(shard).stream()
+                .filter(row -> after == null || comparator.compare(row, after) > 0)
+                .limit(limit)
+                .collect(Collectors.toList());
+
+        List<String> seen = new ArrayList<>();
+        Map<String, PlanSummaryRow> position = Map.of();
+        ShardMergeEngine.MergeResult<PlanSummaryRow> result;
+        do {
+            result = engine.merge(shards.keySet(), comparator, fetcher, position, 0, 2, null);
+            result.items().forEach(row -> seen.add(row.title()));
+            position = result.lastTaken();
+        } while (result.items().size() == 2);
+
+        assertThat(seen).isEqualTo(expected);
+    }
+}
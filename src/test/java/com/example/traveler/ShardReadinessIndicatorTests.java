@@ -0,0 +1,49 @@
+package com.example.traveler;
+
+import com.example.traveler.config.BucketShardRouter;
+import com.example.traveler.config.ShardReadinessIndicator;
+import com.example.traveler.config.ShardingRoutingDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Status;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ShardReadinessIndicatorTests {
+
+    private final Set<String> readyShards = new HashSet<>();
+
+    private static final ShardingRoutingDataSource.CatalogSettings CATALOG = new ShardingRoutingDataSource.CatalogSettings(
+            "jdbc:postgresql://127.0.0.1:1/shard_catalog", "test", "test", 1, Duration.ofMillis(100), Duration.ofSeconds(1));
+
+    private final ShardingRoutingDataSource dataSource = new ShardingRoutingDataSource(5, CATALOG, null) {
+        @Override
+        public boolean isReady(String shardKey) {
+            return readyShards.contains(shardKey);
+        }
+    };
+
+    @Test
+    void readyOnlyWhenEveryRoutedShardIsWarm() {
+        BucketShardRouter router = new BucketShardRouter(null);
+        ShardReadinessIndicator indicator = new ShardReadinessIndicator(dataSource, router, List.of());
+
+        router.shards().stream().filter(shard -> !shard.equals("7")).forEach(readyShards::add);
+        assertThat(indicator.health().getStatus()).isEqualTo(Status.OUT_OF_SERVICE);
+
+        readyShards.add("7");
+        assertThat(indicator.health().getStatus()).isEqualTo(Status.UP);
+    }
+
+    @Test
+    void requiredShardsLimitTheCheck() {
+        ShardReadinessIndicator indicator = new ShardReadinessIndicator(dataSource, new BucketShardRouter(null), List.of("0", "1"));
+
+        readyShards.addAll(List.of("0", "1"));
+        assertThat(indicator.health().getStatus()).isEqualTo(Status.UP);
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.traveler;
+
+import com.example.traveler.config.ShardConnectionException;
+import com.example.traveler.config.ShardRefreshCoordinator;
+import com.example.traveler.config.ShardingRoutingDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.PessimisticLockingFailureException;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ShardRefreshCoordinatorTests {
+
+    private final AtomicInteger shardRefreshes = new AtomicInteger();
+
+    private static final ShardingRoutingDataSource.CatalogSettings CATALOG = new ShardingRoutingDataSource.CatalogSettings(
+            "jdbc:postgresql://127.0.0.1:1/shard_catalog", "test", "test", 1, Duration.ofMillis(100), Duration.ofSeconds(1));
+
+    private final ShardingRoutingDataSource dataSource = new ShardingRoutingDataSource(5, CATALOG, null) {
+        @Override
+        public synchronized void refreshShard(String shardKey) {
+            shardRefreshes.incrementAndGet();
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    };
+
+    private final ShardRefreshCoordinator coordinator = new ShardRefreshCoordinator(dataSource, new SimpleMeterRegistry());
+
+    @Test
+    void onlyConnectionErrorsTriggerRefresh() {
+        SQLException refused = new SQLException("Connection refused", "08001");
+        SQLException missingDb = new SQLException("database \"db_a\" does not exist", "3D000");
+        SQLException uniqueViolation = new SQLException("duplicate key", "23505");
+
+        assertThat(coordinator.isTopologyError(new DataAccessResourceFailureException("x", new ShardConnectionException("a", refused)))).isTrue();
+        assertThat(coordinator.isTopologyError(new DataAccessResourceFailureException("x", missingDb))).isTrue();
+        assertThat(coordinator.isTopologyError(new DataIntegrityViolationException("x", uniqueViolation))).isFalse();
+        assertThat(coordinator.isTopologyError(new PessimisticLockingFailureException("lock timeout"))).isFalse();
+
+        assertThat(coordinator.affectedShard(new DataAccessResourceFailureException("x", new ShardConnectionException("a", refused)))).isEqualTo("a");
+    }
+
+    @Test
+    void concurrentRefreshesOfOneShardCollapseIntoOne() {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<CompletableFuture<ShardRefreshCoordinator.Outcome>> outcomes = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            outcomes.add(CompletableFuture.supplyAsync(() -> coordinator.refresh("a"), executor));
+        }
+        outcomes.forEach(CompletableFuture::join);
+        executor.shutdown();
+
+        assertThat(shardRefreshes).hasValue(1);
+        // Одразу після оновлення діє пауза
+        assertThat(coordinator.refresh("a")).isEqualTo(ShardRefreshCoordinator.Outcome.SKIPPED);
+    }
+}
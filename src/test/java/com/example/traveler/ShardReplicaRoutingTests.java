@@ -0,0 +1,103 @@
+package com.example.traveler;
+
+import com.example.traveler.config.ShardContext;
+import com.example.traveler.config.ShardingRoutingDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ShardReplicaRoutingTests {
+
+    // Немаршрутизована адреса: з'єднання не відхиляється, а зависає до таймауту
+    private static final String UNREACHABLE_REPLICA = "jdbc:postgresql://10.255.255.1:5432/db_0";
+
+    private final AtomicInteger primaryConnections = new AtomicInteger();
+    private final Connection primaryConnection = mock(Connection.class);
+
+    private static final ShardingRoutingDataSource.CatalogSettings CATALOG = new ShardingRoutingDataSource.CatalogSettings(
+            "jdbc:postgresql://127.0.0.1:1/shard_catalog", "test", "test", 1, Duration.ofMillis(100), Duration.ofSeconds(1));
+
+    private final ShardingRoutingDataSource dataSource = new ShardingRoutingDataSource(5, CATALOG, null) {
+        @Override
+        public Connection openCatalogConnection() throws SQLException {
+            return catalog("0", "jdbc:postgresql://127.0.0.1:1/db_0", UNREACHABLE_REPLICA);
+        }
+
+        // Замість пулу primary — заглушка, що рахує видані з'єднання
+        @Override
+        protected DataSource determineTargetDataSource() {
+            DataSource primary = mock(DataSource.class);
+            try {
+                when(primary.getConnection()).then(invocation -> {
+                    primaryConnections.incrementAndGet();
+                    return primaryConnection;
+                });
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+            return primary;
+        }
+    };
+
+    @AfterEach
+    void tearDown() {
+        dataSource.close();
+    }
+
+    @Test
+    void unreachableReplicaFallsBackToPrimaryAndIsSkippedDuringCooldown() {
+        dataSource.refreshDataSources();
+
+        // Перше читання: спроба репліки (разом з очікуванням фонового прогріву) вкладається
+        // в таймаут задачі шарду (5 с) із запасом на primary
+        long started = System.nanoTime();
+        assertThat(readFromReplica()).isSameAs(primaryConnection);
+        assertThat(Duration.ofNanos(System.nanoTime() - started)).isLessThan(Duration.ofSeconds(4));
+
+        // Наступні читання йдуть одразу на primary, без повторних спроб до репліки
+        started = System.nanoTime();
+        for (int i = 0; i < 5; i++) {
+            assertThat(readFromReplica()).isSameAs(primaryConnection);
+        }
+        assertThat(Duration.ofNanos(System.nanoTime() - started)).isLessThan(Duration.ofMillis(500));
+        assertThat(primaryConnections.get()).isEqualTo(6);
+    }
+
+    private Connection readFromReplica() {
+        return ShardContext.callInShard("0", true, () -> {
+            try {
+                return dataSource.getConnection();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    // Каталог з одним рядком shard_mapping
+    private static Connection catalog(String shardKey, String jdbcUrl, String replicaUrls) throws SQLException {
+        ResultSet rows = mock(ResultSet.class);
+        when(rows.next()).thenReturn(true, false);
+        when(rows.getString("shard_key")).thenReturn(shardKey);
+        when(rows.getString("jdbc_url")).thenReturn(jdbcUrl);
+        when(rows.getString("replica_urls")).thenReturn(replicaUrls);
+
+        PreparedStatement statement = mock(PreparedStatement.class);
+        when(statement.executeQuery()).thenReturn(rows);
+
+        Connection connection = mock(Connection.class);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        return connection;
+    }
+}
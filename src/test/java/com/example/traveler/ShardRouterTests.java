@@ -0,0 +1,71 @@
+package com.example.traveler;
+
+import com.example.traveler.config.BucketShardRouter;
+import com.example.traveler.service.ShardIdGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ShardRouterTests {
+
+    @Test
+    void defaultBucketsRouteLikeLastHexChar() {
+        BucketShardRouter router = new BucketShardRouter(null);
+
+        for (int i = 0; i < 1000; i++) {
+            UUID id = UUID.randomUUID();
+            String text = id.toString();
+            assertThat(router.shardFor(id)).isEqualTo(text.substring(text.length() - 1));
+        }
+        assertThat(router.shards()).containsExactly("0", "1", "2", "3", "4", "5", "6", "7",
+                "8", "9", "a", "b", "c", "d", "e", "f");
+    }
+
+    @Test
+    void movingBucketsSplitsShardWithoutChangingIds() {
+        BucketShardRouter router = new BucketShardRouter(null);
+        UUID moved = ShardIdGenerator.randomId(0x013);
+        UUID stayed = ShardIdGenerator.randomId(0x023);
+        assertThat(router.shardFor(moved)).isEqualTo("3");
+
+        // Половину бакетів шарду "3" переносимо на новий шард "3b"
+        Map<Integer, String> assignments = new HashMap<>();
+        for (int bucket = 0; bucket < 1024; bucket++) {
+            boolean split = (bucket & 0xF) == 3 && (bucket & 0x10) != 0;
+            assignments.put(bucket, split ? "3b" : Integer.toHexString(bucket & 0xF));
+        }
+        router.apply(assignments);
+
+        assertThat(router.shardFor(moved)).isEqualTo("3b");
+        assertThat(router.shardFor(stayed)).isEqualTo("3");
+        assertThat(router.shards()).hasSize(17).contains("3", "3b");
+    }
+
+    @Test
+    void bucketsWithPreBucketRowsStayOnTheirDefaultShard() {
+        BucketShardRouter router = new BucketShardRouter(null);
+        // План у бакеті 0x013 і його стара локація: той самий hex-символ "3", але інший бакет (0x203)
+        UUID plan = ShardIdGenerator.randomId(0x013);
+        UUID legacyLocation = ShardIdGenerator.randomId(0x203);
+        UUID movable = ShardIdGenerator.randomId(0x023);
+
+        Map<Integer, String> assignments = new HashMap<>();
+        for (int bucket = 0; bucket < 1024; bucket++) {
+            assignments.put(bucket, Integer.toHexString(bucket & 0xF));
+        }
+        assignments.put(0x013, "3b");
+        assignments.put(0x203, "3b");
+        assignments.put(0x023, "3b");
+        router.apply(assignments, Set.of(0x013, 0x203));
+
+        // Перенесення бакетів зі старими рядками відхилено — план і локація лишаються разом
+        assertThat(router.shardFor(plan)).isEqualTo("3");
+        assertThat(router.shardFor(legacyLocation)).isEqualTo(router.shardFor(plan));
+        assertThat(router.shardFor(movable)).isEqualTo("3b");
+    }
+}
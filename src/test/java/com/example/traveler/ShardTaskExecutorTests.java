@@ -0,0 +1,105 @@
+package com.example.traveler;
+
+import com.example.traveler.config.ShardContext;
+import com.example.traveler.config.ShardTaskExecutor;
+import com.example.traveler.exception.ShardOverloadedException;
+import com.example.traveler.exception.ShardUnavailableException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ShardTaskExecutorTests {
+
+    private final ShardTaskExecutor executor = new ShardTaskExecutor(3, 1, 8,
+            Duration.ofMillis(50), Duration.ofSeconds(2), TransactionOperations.withoutTransaction());
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void tasksRunWithShardContextOfTheirShard() {
+        Map<String, String> seen = executor.invokeAll(List.of("0", "1", "2"), shard -> ShardContext.getShard());
+        assertThat(seen).containsExactlyInAnyOrderEntriesOf(Map.of("0", "0", "1", "1", "2", "2"));
+    }
+
+    @Test
+    void saturatedShardIsRejectedFast() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Object> blocker = executor.submit("0", () -> {
+            await(release);
+            return null;
+        });
+
+        assertThatThrownBy(() -> executor.submit("0", () -> "second"))
+                .isInstanceOf(ShardOverloadedException.class);
+        assertThat(executor.getRejectedCount()).isEqualTo(1);
+
+        release.countDown();
+        blocker.join();
+    }
+
+    @Test
+    void failureCancelsSiblingTasks() {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean slowShardFinished = new AtomicBoolean();
+
+        assertThatThrownBy(() -> executor.invokeAll(List.of("0", "1"), shard -> {
+            if (shard.equals("0")) throw new IllegalStateException("boom");
+            await(release);
+            slowShardFinished.set(true);
+            return shard;
+        })).isInstanceOf(IllegalStateException.class).hasMessage("boom");
+
+        assertThat(slowShardFinished).isFalse();
+        release.countDown();
+    }
+
+    @Test
+    void singleShardCallsGoThroughTheCircuitBreaker() {
+        AtomicInteger calls = new AtomicInteger();
+        // Помилки застосунку шард не "відкривають"
+        for (int i = 0; i < 5; i++) {
+            assertThatThrownBy(() -> executor.guard("1", () -> {
+                calls.incrementAndGet();
+                throw new DataIntegrityViolationException("duplicate key");
+            })).isInstanceOf(DataIntegrityViolationException.class);
+        }
+        // Недоступність вузла — так: після порогу запити відхиляються, не доходячи до шарду
+        for (int i = 0; i < 5; i++) {
+            assertThatThrownBy(() -> executor.guard("1", () -> {
+                calls.incrementAndGet();
+                throw new DataAccessResourceFailureException("down", new SQLException("Connection refused", "08001"));
+            })).isInstanceOf(DataAccessResourceFailureException.class);
+        }
+
+        assertThatThrownBy(() -> executor.guard("1", calls::incrementAndGet)).isInstanceOf(ShardUnavailableException.class);
+        assertThatThrownBy(() -> executor.submit("1", () -> "list")).isInstanceOf(ShardUnavailableException.class);
+        assertThat(calls.get()).isEqualTo(10);
+        assertThat(executor.guard("2", () -> "ok")).isEqualTo("ok");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}